@@ -0,0 +1,16 @@
+#!/bin/sh
+# Replica side: clone the primary on first start, then run as a hot standby.
+set -e
+
+PGDATA=/var/lib/postgresql/data
+
+if [ ! -s "$PGDATA/PG_VERSION" ]; then
+    until pg_isready -h postgres -p 5432 -q; do
+        sleep 1
+    done
+    # -R writes standby.signal and primary_conninfo, so the server starts as a streaming replica
+    pg_basebackup -h postgres -p 5432 -U replicator -D "$PGDATA" -X stream -R
+    chmod 700 "$PGDATA"
+fi
+
+exec postgres
@@ -0,0 +1,43 @@
+import org.springframework.boot.gradle.plugin.SpringBootPlugin
+
+plugins {
+    java
+    id("io.spring.dependency-management")
+    id("me.champeau.jmh") version "0.7.3"
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencyManagement {
+    imports {
+        mavenBom(SpringBootPlugin.BOM_COORDINATES)
+    }
+}
+
+dependencies {
+    // The server's classes plus its runtime classpath (jjwt impl, BCrypt, Caffeine, ...)
+    jmh(project(":"))
+
+    jmh("io.jsonwebtoken:jjwt-api:0.12.6")
+    jmh("org.springframework.security:spring-security-crypto")
+    jmh("io.micrometer:micrometer-core")
+}
+
+jmh {
+    jmhVersion = "1.37"
+    // Forks, warmup and iteration counts are set per class with annotations
+    // Allocation rate (gc.alloc.rate.norm = bytes per operation) next to the timings
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    // ./gradlew :benchmarks:jmh -PjmhIncludes=JwtServiceBenchmark
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes = listOf(it) }
+}
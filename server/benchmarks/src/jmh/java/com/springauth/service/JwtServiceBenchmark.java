@@ -0,0 +1,78 @@
+package com.springauth.service;
+
+import com.springauth.service.JwtKeyRing.Algorithm;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access token signing and verification, per signing algorithm.
+ * parseTokenCached is the steady state of the request filter: a token it has seen before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final long ACCESS_TOKEN_EXPIRY = 900_000;
+
+    @Param({"HS256", "ES256", "EdDSA"})
+    public Algorithm algorithm;
+
+    // false = always the JWT builder, for comparison
+    @Param({"true", "false"})
+    public boolean directSerialization;
+
+    private JwtService jwtService;
+    private UUID userId;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtKeyRing keyRing = new JwtKeyRing(algorithm, "bench", SECRET, "", ACCESS_TOKEN_EXPIRY);
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10_000);
+        jwtService = new JwtService(keyRing, cache, new SimpleMeterRegistry(), ACCESS_TOKEN_EXPIRY, directSerialization);
+
+        userId = UUID.randomUUID();
+        token = jwtService.generateAccessToken(userId, "bench@example.com");
+        jwtService.parseToken(token);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtService.generateAccessToken(userId, "bench@example.com");
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token);
+    }
+
+    @Benchmark
+    public String extractUserId() {
+        return jwtService.extractUserId(token);
+    }
+
+    @Benchmark
+    public Optional<Claims> parseTokenCached() {
+        return jwtService.parseToken(token);
+    }
+}
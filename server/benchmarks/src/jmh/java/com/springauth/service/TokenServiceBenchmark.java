@@ -0,0 +1,43 @@
+package com.springauth.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refresh token minting and hashing; both run on every login and refresh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class TokenServiceBenchmark {
+
+    private String rawToken;
+
+    @Setup
+    public void setUp() {
+        rawToken = TokenService.generateRandomToken();
+    }
+
+    @Benchmark
+    public String generateRandomToken() {
+        return TokenService.generateRandomToken();
+    }
+
+    @Benchmark
+    public byte[] hashToken() {
+        return TokenService.hashToken(rawToken);
+    }
+}
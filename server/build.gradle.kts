@@ -1,9 +1,15 @@
+import org.springframework.boot.gradle.tasks.aot.ProcessAot
+
 plugins {
     java
     id("org.springframework.boot") version "3.5.2"
     id("io.spring.dependency-management") version "1.1.7"
 }
 
+// processAot: bean definitions generated at build time, packaged into the boot jar.
+// Ships inside the Boot plugin without a marker artifact, so it can't go in plugins {}.
+apply(plugin = "org.springframework.boot.aot")
+
 group = "com.springauth"
 version = "0.0.1-SNAPSHOT"
 
@@ -17,18 +23,114 @@ repositories {
     mavenCentral()
 }
 
+// End-to-end load test: the whole server plus an embedded Postgres in one JVM (./gradlew loadTest)
+val loadTest: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[loadTest.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[loadTest.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-security")
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-validation")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+
+    implementation("com.github.ben-manes.caffeine:caffeine")
 
     implementation("io.jsonwebtoken:jjwt-api:0.12.6")
     runtimeOnly("io.jsonwebtoken:jjwt-impl:0.12.6")
     runtimeOnly("io.jsonwebtoken:jjwt-jackson:0.12.6")
 
-    runtimeOnly("org.postgresql:postgresql")
+    implementation("org.flywaydb:flyway-core")
+    runtimeOnly("org.flywaydb:flyway-database-postgresql")
+    // Compile scope for PGConnection (LISTEN/NOTIFY invalidation bus)
+    implementation("org.postgresql:postgresql")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
 
     compileOnly("org.projectlombok:lombok")
     annotationProcessor("org.projectlombok:lombok")
+
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
+    testImplementation("org.awaitility:awaitility")
+    testImplementation("io.zonky.test:embedded-postgres:2.1.0")
+    testRuntimeOnly(platform("io.zonky.test.postgres:embedded-postgres-binaries-bom:17.2.0"))
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+    "loadTestImplementation"("io.zonky.test:embedded-postgres:2.1.0")
+    // Same major version as docker-compose; binaries come from Maven, so no Docker or network at run time
+    "loadTestRuntimeOnly"(platform("io.zonky.test.postgres:embedded-postgres-binaries-bom:17.2.0"))
+    "loadTestImplementation"("org.hdrhistogram:HdrHistogram:2.2.2")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs the server against an embedded Postgres and reports throughput and latency per endpoint."
+    classpath = loadTest.runtimeClasspath
+    mainClass = "com.springauth.loadtest.LoadTestMain"
+    // -Ploadtest.users=200, -Pspring.threads.virtual.enabled=true, ... become system properties
+    systemProperties(providers.gradlePropertiesPrefixedBy("loadtest.").get())
+    systemProperties(providers.gradlePropertiesPrefixedBy("spring.").get())
+    systemProperties(providers.gradlePropertiesPrefixedBy("app.").get())
+    systemProperty("loadtest.report-dir", layout.buildDirectory.dir("reports/loadtest").get().asFile.path)
+}
+
+// Startup acceleration: AOT-processed boot jar + class data sharing archive (see docs/PERFORMANCE.md)
+tasks.named<ProcessAot>("processAot") {
+    // Conditions are evaluated once, here, so these are fixed in the AOT build; rebuild when they change
+    inputs.property("virtualThreads", providers.environmentVariable("VIRTUAL_THREADS").orElse("false"))
+    inputs.property("replica", providers.environmentVariable("DB_REPLICA_URL").map { it.isNotBlank() }.orElse(false))
+    inputs.property("invalidationBus", providers.environmentVariable("INVALIDATION_BUS_ENABLED").orElse("true"))
+}
+
+val javaExecutable = javaToolchains.launcherFor(java.toolchain).map { it.executablePath.asFile.path }
+val cdsDir = layout.buildDirectory.dir("cds")
+val cdsApplicationJar = cdsDir.zip(tasks.bootJar.flatMap { it.archiveFileName }) { dir, name -> dir.file("application/$name") }
+val cdsArchive = cdsDir.map { it.file("application.jsa") }
+// The launcher that trained the archive; scripts/measure-startup.sh must use the same JDK
+val cdsLauncher = cdsDir.map { it.file("java-launcher") }
+
+val extractBootJar by tasks.registering(Exec::class) {
+    group = "build"
+    description = "Unpacks the boot jar into build/cds/application, the layout a CDS archive needs."
+    inputs.file(tasks.bootJar.flatMap { it.archiveFile })
+    outputs.dir(cdsDir.map { it.dir("application") })
+    executable(javaExecutable.get())
+    args("-Djarmode=tools", "-jar", tasks.bootJar.get().archiveFile.get().asFile.path,
+        "extract", "--force", "--destination", cdsDir.get().dir("application").asFile.path)
+}
+
+val trainCds by tasks.registering(Exec::class) {
+    group = "build"
+    description = "Training run: starts the AOT-processed application once and writes build/cds/application.jsa. Needs the database."
+    dependsOn(extractBootJar)
+    inputs.dir(cdsDir.map { it.dir("application") })
+    outputs.file(cdsArchive)
+    outputs.file(cdsLauncher)
+    executable(javaExecutable.get())
+    args("-XX:ArchiveClassesAtExit=${cdsArchive.get().asFile.path}",
+        "-Dspring.aot.enabled=true",
+        // Exit once the context is refreshed: every startup class is loaded by then
+        "-Dspring.context.exit=onRefresh",
+        "-jar", cdsApplicationJar.get().asFile.path)
+    doLast {
+        cdsLauncher.get().asFile.writeText(javaExecutable.get())
+    }
+}
+
+tasks.register<Exec>("bootRunOptimized") {
+    group = "application"
+    description = "Runs the extracted application with AOT bean definitions and the CDS archive."
+    dependsOn(trainCds)
+    executable(javaExecutable.get())
+    args("-XX:SharedArchiveFile=${cdsArchive.get().asFile.path}",
+        "-Dspring.aot.enabled=true",
+        "-jar", cdsApplicationJar.get().asFile.path)
 }
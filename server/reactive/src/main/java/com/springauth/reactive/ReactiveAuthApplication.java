@@ -0,0 +1,35 @@
+package com.springauth.reactive;
+
+import com.springauth.config.SchedulingConfig;
+import com.springauth.controller.JwksController;
+import com.springauth.service.AuthRateLimiter;
+import com.springauth.service.JwtKeyRing;
+import com.springauth.service.JwtService;
+import com.springauth.service.VerifiedTokenCache;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Import;
+
+/**
+ * The auth API on WebFlux and R2DBC: same endpoints, tokens and schema as the
+ * servlet server, but no request holds a thread while it waits on Postgres.
+ * Signing, verification and rate limiting are the server's own beans.
+ */
+@SpringBootApplication
+@Import({
+        JwtKeyRing.class,
+        VerifiedTokenCache.class,
+        JwtService.class,
+        AuthRateLimiter.class,
+        JwksController.class,
+        SchedulingConfig.class
+})
+public class ReactiveAuthApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveAuthApplication.class)
+                // The server's application.yml is on the classpath too, so this module's file has its own name
+                .properties("spring.config.name=reactive")
+                .run(args);
+    }
+}
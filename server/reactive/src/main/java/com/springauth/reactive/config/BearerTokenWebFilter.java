@@ -0,0 +1,112 @@
+package com.springauth.reactive.config;
+
+import com.springauth.dto.UserPrincipal;
+import com.springauth.reactive.service.ReactiveTokenEpochService;
+import com.springauth.reactive.service.ReactiveUserPrincipalCache;
+import com.springauth.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtAuthenticationFilter for WebFlux, with the same rules: a missing, invalid or
+ * revoked token leaves the request unauthenticated, and so does a disabled or
+ * unknown user. Signature checks run inline (they are CPU-only and cached); the
+ * principal lookup on a cache miss is a non-blocking query.
+ *
+ * Not a bean: Boot would also add it to the plain WebFilter chain.
+ */
+public class BearerTokenWebFilter implements WebFilter {
+
+    private final JwtService jwtService;
+    private final ReactiveUserPrincipalCache userPrincipalCache;
+    private final ReactiveTokenEpochService tokenEpochService;
+    private final boolean statelessPrincipal;
+
+    private final Timer authenticatedTimer;
+    private final Timer rejectedTimer;
+
+    public BearerTokenWebFilter(
+            JwtService jwtService,
+            ReactiveUserPrincipalCache userPrincipalCache,
+            ReactiveTokenEpochService tokenEpochService,
+            MeterRegistry meterRegistry,
+            boolean statelessPrincipal
+    ) {
+        this.jwtService = jwtService;
+        this.userPrincipalCache = userPrincipalCache;
+        this.tokenEpochService = tokenEpochService;
+        this.statelessPrincipal = statelessPrincipal;
+        this.authenticatedTimer = filterTimer(meterRegistry, "authenticated");
+        this.rejectedTimer = filterTimer(meterRegistry, "rejected");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+
+        long start = System.nanoTime();
+        return authenticate(authHeader.substring(7))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(authentication -> {
+                    (authentication.isPresent() ? authenticatedTimer : rejectedTimer)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return authentication
+                            .map(a -> chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(a)))
+                            .orElseGet(() -> chain.filter(exchange));
+                });
+    }
+
+    /**
+     * Verifies the bearer token; completes empty if it was not accepted.
+     */
+    private Mono<Authentication> authenticate(String token) {
+        Optional<Claims> claims = jwtService.parseToken(token);
+        if (claims.isEmpty()) {
+            return Mono.empty();
+        }
+
+        UUID userId = UUID.fromString(claims.get().getSubject());
+
+        if (tokenEpochService.isRevoked(userId, JwtService.issuedAtMillis(claims.get()))) {
+            // Issued before the user's last "logout everywhere"
+            return Mono.empty();
+        }
+
+        if (statelessPrincipal) {
+            return Mono.just(authentication(jwtService.toPrincipal(claims.get())));
+        }
+
+        return userPrincipalCache.get(userId)
+                .filter(UserPrincipal::enabled)
+                .map(BearerTokenWebFilter::authentication);
+    }
+
+    private static Authentication authentication(UserPrincipal principal) {
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.authorities());
+    }
+
+    private static Timer filterTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auth.filter")
+                .description("Bearer token authentication in BearerTokenWebFilter")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,83 @@
+package com.springauth.reactive.config;
+
+import com.springauth.reactive.service.ReactiveTokenEpochService;
+import com.springauth.reactive.service.ReactiveUserPrincipalCache;
+import com.springauth.service.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+@Configuration
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(
+            ServerHttpSecurity http,
+            JwtService jwtService,
+            ReactiveUserPrincipalCache userPrincipalCache,
+            ReactiveTokenEpochService tokenEpochService,
+            MeterRegistry meterRegistry,
+            @Value("${app.jwt.stateless-principal}") boolean statelessPrincipal,
+            @Value("${management.server.port}") int managementPort
+    ) {
+        BearerTokenWebFilter bearerFilter = new BearerTokenWebFilter(
+                jwtService, userPrincipalCache, tokenEpochService, meterRegistry, statelessPrincipal);
+
+        return http
+                .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                // Stateless: nothing is stored between requests
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                // 403 for unauthenticated requests, as the servlet stack answers
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+                .authorizeExchange(auth -> auth
+                        .pathMatchers("/api/auth/**").permitAll()
+                        .pathMatchers("/.well-known/jwks.json").permitAll()
+                        // Actuator only answers on the management port, kept off the public network
+                        .matchers(exchange -> isPort(exchange, managementPort)).permitAll()
+                        .anyExchange().authenticated()
+                )
+                .addFilterAt(bearerFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+    private static Mono<ServerWebExchangeMatcher.MatchResult> isPort(ServerWebExchange exchange, int port) {
+        InetSocketAddress local = exchange.getRequest().getLocalAddress();
+        return local != null && local.getPort() == port
+                ? ServerWebExchangeMatcher.MatchResult.match()
+                : ServerWebExchangeMatcher.MatchResult.notMatch();
+    }
+
+    @Bean
+    public CorsConfigurationSource corsConfigurationSource() {
+        CorsConfiguration config = new CorsConfiguration();
+        config.setAllowedOrigins(List.of("http://localhost:5173"));
+        config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        config.setAllowedHeaders(List.of("*"));
+        config.setAllowCredentials(true);
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", config);
+        return source;
+    }
+}
@@ -0,0 +1,111 @@
+package com.springauth.reactive.controller;
+
+import com.springauth.dto.AuthResponse;
+import com.springauth.dto.LoginRequest;
+import com.springauth.dto.RegisterRequest;
+import com.springauth.exception.InvalidRefreshTokenException;
+import com.springauth.reactive.service.ReactiveAuthService;
+import com.springauth.reactive.service.ReactiveAuthService.AuthResult;
+import com.springauth.service.AuthRateLimiter;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+/**
+ * Same endpoints, cookie and status codes as the servlet AuthController.
+ */
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+public class ReactiveAuthController {
+
+    private static final String REFRESH_TOKEN_COOKIE = "refresh_token";
+
+    private final ReactiveAuthService authService;
+    private final AuthRateLimiter rateLimiter;
+
+    @Value("${app.jwt.refresh-token-expiry}")
+    private long refreshTokenExpiry;
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<AuthResponse>> register(
+            @Valid @RequestBody RegisterRequest request,
+            ServerHttpRequest httpRequest
+    ) {
+        rateLimiter.check(clientIp(httpRequest), request.email());
+        return authService.register(request)
+                .map(result -> withRefreshTokenCookie(ResponseEntity.status(HttpStatus.CREATED), result));
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<AuthResponse>> login(
+            @Valid @RequestBody LoginRequest request,
+            ServerHttpRequest httpRequest
+    ) {
+        rateLimiter.check(clientIp(httpRequest), request.email());
+        return authService.login(request)
+                .map(result -> withRefreshTokenCookie(ResponseEntity.ok(), result));
+    }
+
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<AuthResponse>> refresh(ServerHttpRequest request) {
+        String refreshToken = extractRefreshTokenFromCookie(request);
+
+        if (refreshToken == null) {
+            return Mono.error(new InvalidRefreshTokenException("No refresh token provided"));
+        }
+
+        return authService.refresh(refreshToken)
+                .map(result -> withRefreshTokenCookie(ResponseEntity.ok(), result));
+    }
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Void>> logout(ServerHttpRequest request) {
+        String refreshToken = extractRefreshTokenFromCookie(request);
+
+        Mono<Void> revoke = refreshToken != null ? authService.logout(refreshToken) : Mono.empty();
+        return revoke.then(Mono.fromSupplier(() -> ResponseEntity.noContent()
+                .header(HttpHeaders.SET_COOKIE, refreshTokenCookie("", Duration.ZERO).toString())  // deletes the cookie
+                .build()));
+    }
+
+    private ResponseEntity<AuthResponse> withRefreshTokenCookie(ResponseEntity.BodyBuilder response, AuthResult result) {
+        ResponseCookie cookie = refreshTokenCookie(result.refreshToken(), Duration.ofMillis(refreshTokenExpiry));
+        return response.header(HttpHeaders.SET_COOKIE, cookie.toString()).body(result.response());
+    }
+
+    private static ResponseCookie refreshTokenCookie(String value, Duration maxAge) {
+        return ResponseCookie.from(REFRESH_TOKEN_COOKIE, value)
+                .httpOnly(true)      // JavaScript can't access it
+                .secure(false)       // false for localhost (true in production)
+                .path("/api/auth")   // only sent to auth endpoints
+                .maxAge(maxAge)
+                .build();
+    }
+
+    private static String extractRefreshTokenFromCookie(ServerHttpRequest request) {
+        HttpCookie cookie = request.getCookies().getFirst(REFRESH_TOKEN_COOKIE);
+        return cookie != null ? cookie.getValue() : null;
+    }
+
+    private static String clientIp(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        return address != null && address.getAddress() != null
+                ? address.getAddress().getHostAddress()
+                : "unknown";
+    }
+}
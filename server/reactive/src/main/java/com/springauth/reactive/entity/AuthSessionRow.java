@@ -0,0 +1,18 @@
+package com.springauth.reactive.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A row of the auth_sessions table (one refresh token family).
+ */
+@Table("auth_sessions")
+public record AuthSessionRow(
+        @Id UUID id,
+        UUID userId,
+        boolean revoked,
+        Instant createdAt
+) {}
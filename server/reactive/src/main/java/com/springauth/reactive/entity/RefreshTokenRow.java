@@ -0,0 +1,27 @@
+package com.springauth.reactive.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A row of the refresh_tokens table. A null id means not yet inserted.
+ */
+@Table("refresh_tokens")
+public record RefreshTokenRow(
+        @Id Long id,
+        @Column("token_digest") byte[] tokenHash,
+        UUID userId,
+        UUID sessionId,
+        Instant expiresAt,
+        boolean revoked,
+        Instant createdAt
+) {
+
+    public boolean isExpired() {
+        return Instant.now().isAfter(expiresAt);
+    }
+}
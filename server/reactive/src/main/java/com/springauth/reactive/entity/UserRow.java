@@ -0,0 +1,23 @@
+package com.springauth.reactive.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A row of the users table, as mapped by Spring Data R2DBC.
+ */
+@Table("users")
+public record UserRow(
+        @Id UUID id,
+        String email,
+        String passwordHash,
+        String firstName,
+        String lastName,
+        boolean enabled,
+        Instant tokensValidAfter,
+        Instant createdAt,
+        Instant updatedAt
+) {}
@@ -0,0 +1,103 @@
+package com.springauth.reactive.exception;
+
+import com.springauth.exception.EmailAlreadyExistsException;
+import com.springauth.exception.InvalidCredentialsException;
+import com.springauth.exception.InvalidRefreshTokenException;
+import com.springauth.exception.RateLimitExceededException;
+import com.springauth.exception.ServiceOverloadedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.reactive.resource.NoResourceFoundException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * GlobalExceptionHandler's responses for WebFlux (which reports validation
+ * errors as WebExchangeBindException), so both stacks return the same bodies.
+ */
+@RestControllerAdvice
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Map<String, Object>> handleValidation(WebExchangeBindException ex) {
+        Map<String, String> fieldErrors = new HashMap<>();
+        ex.getBindingResult().getFieldErrors().forEach(error ->
+                fieldErrors.put(error.getField(), error.getDefaultMessage())
+        );
+
+        Map<String, Object> body = Map.of(
+                "status", 400,
+                "error", "Validation failed",
+                "fieldErrors", fieldErrors
+        );
+        return ResponseEntity.badRequest().body(body);
+    }
+
+    @ExceptionHandler(EmailAlreadyExistsException.class)
+    public ResponseEntity<Map<String, Object>> handleDuplicateEmail(EmailAlreadyExistsException ex) {
+        Map<String, Object> body = Map.of(
+                "status", 409,
+                "error", "Conflict",
+                "message", ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
+    @ExceptionHandler({InvalidCredentialsException.class, InvalidRefreshTokenException.class})
+    public ResponseEntity<Map<String, Object>> handleUnauthorized(RuntimeException ex) {
+        Map<String, Object> body = Map.of(
+                "status", 401,
+                "error", "Unauthorized",
+                "message", ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleRateLimited(RateLimitExceededException ex) {
+        Map<String, Object> body = Map.of(
+                "status", 429,
+                "error", "Too many requests",
+                "message", ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<Map<String, Object>> handleOverloaded(ServiceOverloadedException ex) {
+        Map<String, Object> body = Map.of(
+                "status", 503,
+                "error", "Service unavailable",
+                "message", ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
+
+    @ExceptionHandler(NoResourceFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleNotFound(NoResourceFoundException ex) {
+        Map<String, Object> body = Map.of(
+                "status", 404,
+                "error", "Not found",
+                "message", "The requested resource was not found"
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, Object>> handleGeneric(Exception ex) {
+        Map<String, Object> body = Map.of(
+                "status", 500,
+                "error", "Internal server error"
+        );
+        return ResponseEntity.internalServerError().body(body);
+    }
+}
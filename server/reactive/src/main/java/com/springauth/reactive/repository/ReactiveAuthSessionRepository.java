@@ -0,0 +1,23 @@
+package com.springauth.reactive.repository;
+
+import com.springauth.reactive.entity.AuthSessionRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+public interface ReactiveAuthSessionRepository extends ReactiveCrudRepository<AuthSessionRow, UUID> {
+
+    @Modifying
+    @Query("INSERT INTO auth_sessions (id, user_id, revoked, created_at) VALUES (:id, :userId, false, now())")
+    Mono<Integer> insert(UUID id, UUID userId);
+
+    /**
+     * Ends the session: every token in it stops rotating.
+     */
+    @Modifying
+    @Query("UPDATE auth_sessions SET revoked = true WHERE id = :sessionId AND revoked = false")
+    Mono<Integer> revoke(UUID sessionId);
+}
@@ -0,0 +1,47 @@
+package com.springauth.reactive.repository;
+
+import com.springauth.reactive.entity.RefreshTokenRow;
+import com.springauth.repository.RefreshTokenQueries;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of the server's RefreshTokenRepository. Only digests are
+ * looked up, so run this stack once the hex-to-binary backfill has finished.
+ */
+public interface ReactiveRefreshTokenRepository extends ReactiveCrudRepository<RefreshTokenRow, Long> {
+
+    @Query("SELECT * FROM refresh_tokens WHERE token_digest = :tokenHash")
+    Mono<RefreshTokenRow> findByTokenHash(byte[] tokenHash);
+
+    /**
+     * Rotation in one round trip, the statement RefreshTokenRepository.revokeIfActive runs.
+     * Empty means the token is unknown, already used, expired, or belongs to a dead session.
+     */
+    @Query(RefreshTokenQueries.ROTATE_IF_ACTIVE + """
+            SELECT user_id, session_id, email, first_name
+            FROM rotated
+            """)
+    Mono<TokenOwner> revokeIfActive(byte[] tokenHash);
+
+    @Modifying
+    @Query("UPDATE refresh_tokens SET revoked = true WHERE id = :id")
+    Mono<Integer> revoke(Long id);
+
+    /**
+     * Compatibility for one release, as RefreshTokenRepository.revokeAllBySessionId.
+     */
+    @Modifying
+    @Query("UPDATE refresh_tokens SET revoked = true WHERE session_id = :sessionId AND revoked = false")
+    Mono<Integer> revokeAllBySessionId(UUID sessionId);
+
+    @Modifying
+    @Query("UPDATE refresh_tokens SET revoked = true WHERE user_id = :userId AND revoked = false")
+    Mono<Integer> revokeAllByUserId(UUID userId);
+
+    record TokenOwner(UUID userId, UUID sessionId, String email, String firstName) {}
+}
@@ -0,0 +1,55 @@
+package com.springauth.reactive.repository;
+
+import com.springauth.reactive.entity.UserRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of the server's UserRepository, with the same queries.
+ */
+public interface ReactiveUserRepository extends ReactiveCrudRepository<UserRow, UUID> {
+
+    /**
+     * Case-insensitive; lower(email) matches the users_email_lower_key index.
+     */
+    @Query("SELECT * FROM users WHERE lower(email) = lower(:email)")
+    Mono<UserRow> findByEmail(String email);
+
+    /**
+     * Plain INSERT (the id is generated here, so save() would issue an UPDATE).
+     * A duplicate email fails on the case-insensitive unique index.
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO users (id, email, password_hash, first_name, last_name, enabled, created_at, updated_at)
+            VALUES (:id, :email, :passwordHash, :firstName, :lastName, true, now(), now())
+            """)
+    Mono<Integer> insert(UUID id, String email, String passwordHash, String firstName, String lastName);
+
+    @Query("SELECT id, email, enabled FROM users WHERE id = :userId")
+    Mono<PrincipalRow> findPrincipalById(UUID userId);
+
+    @Modifying
+    @Query("UPDATE users SET password_hash = :passwordHash WHERE id = :userId")
+    Mono<Integer> updatePasswordHash(UUID userId, String passwordHash);
+
+    @Modifying
+    @Query("UPDATE users SET tokens_valid_after = :validAfter WHERE id = :userId")
+    Mono<Integer> updateTokensValidAfter(UUID userId, Instant validAfter);
+
+    @Query("SELECT id AS user_id, tokens_valid_after AS valid_after FROM users WHERE tokens_valid_after > :since")
+    Flux<TokenEpoch> findTokenEpochsChangedSince(Instant since);
+
+    /**
+     * The columns the bearer filter needs, without the password hash.
+     */
+    record PrincipalRow(UUID id, String email, boolean enabled) {}
+
+    record TokenEpoch(UUID userId, Instant validAfter) {}
+}
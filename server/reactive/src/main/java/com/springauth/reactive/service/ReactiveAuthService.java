@@ -0,0 +1,113 @@
+package com.springauth.reactive.service;
+
+import com.springauth.dto.AuthResponse;
+import com.springauth.dto.LoginRequest;
+import com.springauth.dto.RegisterRequest;
+import com.springauth.exception.EmailAlreadyExistsException;
+import com.springauth.exception.InvalidCredentialsException;
+import com.springauth.reactive.entity.UserRow;
+import com.springauth.reactive.repository.ReactiveUserRepository;
+import com.springauth.service.JwtService;
+import io.r2dbc.spi.R2dbcException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * The servlet stack's AuthService on R2DBC. Password hashing happens before any
+ * transaction starts, so no connection is held while BCrypt runs.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveAuthService {
+
+    private final ReactiveUserRepository userRepository;
+    private final ReactivePasswordHasher passwordHasher;
+    private final JwtService jwtService;
+    private final ReactiveTokenService tokenService;
+    private final TransactionalOperator transactionalOperator;
+
+    /**
+     * Register: hash, then insert the user and start a session in one transaction.
+     * The case-insensitive unique index on email rejects duplicates.
+     */
+    public Mono<AuthResult> register(RegisterRequest request) {
+        UUID userId = UUID.randomUUID();
+
+        return passwordHasher.encode(request.password())
+                .flatMap(passwordHash -> userRepository
+                        .insert(userId, request.email(), passwordHash, request.firstName(), request.lastName())
+                        .onErrorMap(ReactiveAuthService::isDuplicateEmail,
+                                e -> new EmailAlreadyExistsException(request.email()))
+                        .then(tokenService.createRefreshToken(userId))
+                        .as(transactionalOperator::transactional))
+                .map(refreshToken -> new AuthResult(
+                        new AuthResponse(jwtService.generateAccessToken(userId, request.email()),
+                                request.email(), request.firstName()),
+                        refreshToken
+                ));
+    }
+
+    /**
+     * Login: validate credentials, return access token + refresh token.
+     */
+    public Mono<AuthResult> login(LoginRequest request) {
+        return userRepository.findByEmail(request.email())
+                .filter(UserRow::enabled)
+                .filterWhen(user -> passwordHasher.matches(request.password(), user.passwordHash()))
+                .switchIfEmpty(Mono.error(InvalidCredentialsException::new))
+                .flatMap(user -> rehashIfNeeded(user, request.password())
+                        .then(tokenService.createRefreshToken(user.id()))
+                        .map(refreshToken -> new AuthResult(
+                                new AuthResponse(jwtService.generateAccessToken(user.id(), user.email()),
+                                        user.email(), user.firstName()),
+                                refreshToken
+                        )));
+    }
+
+    /**
+     * Moves the stored hash to the current algorithm and cost while we have the raw password.
+     */
+    private Mono<Void> rehashIfNeeded(UserRow user, String rawPassword) {
+        if (!passwordHasher.needsRehash(user.passwordHash())) {
+            return Mono.empty();
+        }
+        return passwordHasher.encode(rawPassword)
+                .flatMap(passwordHash -> userRepository.updatePasswordHash(user.id(), passwordHash))
+                .then();
+    }
+
+    /**
+     * Refresh: atomically revoke the refresh token, issue a new one and a new access token.
+     */
+    public Mono<AuthResult> refresh(String rawRefreshToken) {
+        return tokenService.rotateRefreshToken(rawRefreshToken)
+                .map(rotation -> new AuthResult(
+                        new AuthResponse(jwtService.generateAccessToken(rotation.userId(), rotation.email()),
+                                rotation.email(), rotation.firstName()),
+                        rotation.refreshToken()
+                ));
+    }
+
+    public Mono<Void> logout(String rawRefreshToken) {
+        return tokenService.revokeRefreshToken(rawRefreshToken);
+    }
+
+    /**
+     * Only a unique violation of the email index means the address is taken; any
+     * other integrity error is a bug and must not look like a 409.
+     */
+    private static boolean isDuplicateEmail(Throwable e) {
+        return e instanceof DataIntegrityViolationException
+                && e.getCause() instanceof R2dbcException cause
+                && "23505".equals(cause.getSqlState())
+                && cause.getMessage() != null
+                && cause.getMessage().contains('"' + EmailAlreadyExistsException.EMAIL_KEY + '"');
+    }
+
+    public record AuthResult(AuthResponse response, String refreshToken) {}
+}
@@ -0,0 +1,78 @@
+package com.springauth.reactive.service;
+
+import com.springauth.exception.ServiceOverloadedException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs BCrypt on its own bounded scheduler, never on an event loop thread. Like
+ * the servlet stack's PasswordHashingService, a full queue is a 503 with
+ * Retry-After rather than an unbounded backlog.
+ */
+@Component
+public class ReactivePasswordHasher implements DisposableBean {
+
+    private final PasswordEncoder passwordEncoder;
+    private final Scheduler scheduler;
+    private final long retryAfterSeconds;
+
+    public ReactivePasswordHasher(
+            @Value("${app.password-hashing.strength}") int strength,
+            @Value("${app.password-hashing.threads}") int threads,
+            @Value("${app.password-hashing.queue-capacity}") int queueCapacity,
+            @Value("${app.password-hashing.retry-after}") long retryAfterSeconds
+    ) {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of(
+                "bcrypt", bcrypt,
+                "pbkdf2@SpringSecurity_v5_8", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8()
+        ));
+        // Same formats as the servlet stack: un-prefixed hashes are plain BCrypt
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        this.passwordEncoder = encoder;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // Reactor caps the queue per worker thread
+        int queuePerThread = Math.max(1, queueCapacity / poolSize);
+        this.scheduler = Schedulers.newBoundedElastic(poolSize, queuePerThread, "bcrypt");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public Mono<String> encode(String rawPassword) {
+        return onHashScheduler(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public Mono<Boolean> matches(String rawPassword, String passwordHash) {
+        return onHashScheduler(() -> passwordEncoder.matches(rawPassword, passwordHash));
+    }
+
+    /**
+     * True if the hash uses another algorithm or a lower cost than new hashes get.
+     */
+    public boolean needsRehash(String passwordHash) {
+        return passwordEncoder.upgradeEncoding(passwordHash);
+    }
+
+    private <T> Mono<T> onHashScheduler(Callable<T> task) {
+        return Mono.fromCallable(task)
+                .subscribeOn(scheduler)
+                .onErrorMap(RejectedExecutionException.class, e -> new ServiceOverloadedException(retryAfterSeconds));
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+}
@@ -0,0 +1,91 @@
+package com.springauth.reactive.service;
+
+import com.springauth.reactive.repository.ReactiveUserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The servlet stack's TokenEpochService over R2DBC: users.tokens_valid_after
+ * mirrored in memory, so the bearer filter rejects revoked access tokens with one
+ * map lookup. Epochs set by either stack are picked up by polling.
+ */
+@Service
+public class ReactiveTokenEpochService {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ReactiveUserRepository userRepository;
+    private final long accessTokenExpiry;
+
+    /** userId -> epoch in epoch-ms (the "iat_ms" claim's resolution). */
+    private final Map<UUID, Long> epochs = new ConcurrentHashMap<>();
+    private volatile Instant lastPoll = Instant.EPOCH;
+
+    public ReactiveTokenEpochService(
+            ReactiveUserRepository userRepository,
+            @Value("${app.jwt.access-token-expiry}") long accessTokenExpiry
+    ) {
+        this.userRepository = userRepository;
+        this.accessTokenExpiry = accessTokenExpiry;
+    }
+
+    /**
+     * True if the user revoked all tokens after this token was issued.
+     */
+    public boolean isRevoked(UUID userId, long issuedAtMillis) {
+        Long epoch = epochs.get(userId);
+        return epoch != null && issuedAtMillis < epoch;
+    }
+
+    /**
+     * Invalidates every access token and session of the user so far, rounded up to the next millisecond.
+     */
+    public Mono<Void> revokeAll(UUID userId) {
+        Instant validAfter = Instant.now().truncatedTo(ChronoUnit.MILLIS).plusMillis(1);
+        return userRepository.updateTokensValidAfter(userId, validAfter)
+                .doOnSuccess(updated -> apply(userId, validAfter))
+                .then();
+    }
+
+    @PostConstruct
+    public void load() {
+        refresh(Instant.now().minusMillis(accessTokenExpiry));
+    }
+
+    /**
+     * Runs on the scheduling thread, not an event loop, so it simply waits for the query.
+     */
+    @Scheduled(fixedDelayString = "${app.token-epoch.poll-interval}")
+    public void poll() {
+        Instant horizon = Instant.now().minusMillis(accessTokenExpiry);
+        // Overlap the previous poll a little to tolerate clock skew between nodes
+        Instant since = lastPoll.minusSeconds(5).isAfter(horizon) ? lastPoll.minusSeconds(5) : horizon;
+        refresh(since);
+
+        long horizonMillis = horizon.toEpochMilli();
+        epochs.values().removeIf(epoch -> epoch < horizonMillis);
+    }
+
+    private void refresh(Instant since) {
+        Instant startedAt = Instant.now();
+        userRepository.findTokenEpochsChangedSince(since)
+                .doOnNext(epoch -> apply(epoch.userId(), epoch.validAfter()))
+                .then()
+                .block(POLL_TIMEOUT);
+        lastPoll = startedAt;
+    }
+
+    private void apply(UUID userId, Instant validAfter) {
+        epochs.merge(userId, validAfter.toEpochMilli(), Math::max);
+    }
+}
@@ -0,0 +1,161 @@
+package com.springauth.reactive.service;
+
+import com.springauth.exception.InvalidRefreshTokenException;
+import com.springauth.reactive.entity.RefreshTokenRow;
+import com.springauth.reactive.repository.ReactiveAuthSessionRepository;
+import com.springauth.reactive.repository.ReactiveRefreshTokenRepository;
+import com.springauth.reactive.repository.ReactiveRefreshTokenRepository.TokenOwner;
+import com.springauth.service.Sha256;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * The servlet stack's TokenService over R2DBC, with the same statements, so
+ * tokens issued by either stack rotate and revoke on the other.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveTokenService {
+
+    private final ReactiveRefreshTokenRepository refreshTokenRepository;
+    private final ReactiveAuthSessionRepository authSessionRepository;
+    private final ReactiveTokenEpochService tokenEpochService;
+    private final MeterRegistry meterRegistry;
+
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+    private static final SecureRandom RANDOM = new SecureRandom();
+    @Value("${app.jwt.refresh-token-expiry}")
+    private long refreshTokenExpiry;
+
+    /**
+     * Starts a new session (login, register) and returns its first raw refresh token.
+     */
+    @Transactional
+    public Mono<String> createRefreshToken(UUID userId) {
+        return startSession(userId).flatMap(sessionId -> issueRefreshToken(userId, sessionId));
+    }
+
+    private Mono<UUID> startSession(UUID userId) {
+        UUID sessionId = UUID.randomUUID();
+        return authSessionRepository.insert(sessionId, userId).thenReturn(sessionId);
+    }
+
+    private Mono<String> issueRefreshToken(UUID userId, UUID sessionId) {
+        String rawToken = generateRandomToken();
+        Instant now = Instant.now();
+        RefreshTokenRow refreshToken = new RefreshTokenRow(
+                null, hashToken(rawToken), userId, sessionId, now.plusMillis(refreshTokenExpiry), false, now);
+
+        return refreshTokenRepository.save(refreshToken).thenReturn(rawToken);
+    }
+
+    /**
+     * Token rotation: revoke the old token with one conditional UPDATE, issue the next
+     * one in the same session. Reusing an already rotated token revokes its session.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Mono<RotationResult> rotateRefreshToken(String rawToken) {
+        byte[] tokenHash = hashToken(rawToken);
+
+        return refreshTokenRepository.revokeIfActive(tokenHash)
+                .switchIfEmpty(Mono.defer(() -> rotationFailure(tokenHash).flatMap(e -> Mono.<TokenOwner>error(e))))
+                .flatMap(owner -> {
+                    Mono<UUID> session = owner.sessionId() == null
+                            ? startSession(owner.userId())  // token from before sessions: give it one now
+                            : Mono.just(owner.sessionId());
+                    return session
+                            .flatMap(sessionId -> issueRefreshToken(owner.userId(), sessionId))
+                            .map(newToken -> {
+                                countRotation("success");
+                                return new RotationResult(newToken, owner.userId(), owner.email(), owner.firstName());
+                            });
+                });
+    }
+
+    /**
+     * Slow path, only when the conditional revoke matched nothing: work out why.
+     */
+    private Mono<InvalidRefreshTokenException> rotationFailure(byte[] tokenHash) {
+        return refreshTokenRepository.findByTokenHash(tokenHash)
+                .flatMap(this::rotationFailure)
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    countRotation("invalid");
+                    return new InvalidRefreshTokenException("Invalid or expired refresh token");
+                }));
+    }
+
+    private Mono<InvalidRefreshTokenException> rotationFailure(RefreshTokenRow token) {
+        // Breach detection: if token is already rotated, someone else holds a copy
+        if (token.revoked() && token.sessionId() != null) {
+            return authSessionRepository.revoke(token.sessionId()).flatMap(ended -> {
+                if (ended == 0) {
+                    // Session already logged out: its rows are revoked too, but that is no reuse
+                    countRotation("revoked");
+                    return Mono.just(new InvalidRefreshTokenException("Session has been revoked"));
+                }
+                return refreshTokenRepository.revokeAllBySessionId(token.sessionId()).then(Mono.fromSupplier(() -> {
+                    countRotation("reuse_detected");
+                    return new InvalidRefreshTokenException("Refresh token reuse detected — session revoked");
+                }));
+            });
+        }
+        if (token.revoked()) {
+            // No family to target: end every session of the user
+            return tokenEpochService.revokeAll(token.userId())
+                    .then(refreshTokenRepository.revokeAllByUserId(token.userId()))
+                    .then(Mono.fromSupplier(() -> {
+                        countRotation("reuse_detected");
+                        return new InvalidRefreshTokenException("Refresh token reuse detected — session revoked");
+                    }));
+        }
+
+        if (token.isExpired()) {
+            countRotation("expired");
+            return Mono.just(new InvalidRefreshTokenException("Refresh token expired"));
+        }
+
+        // Live token in a session that was logged out or ended by "logout everywhere"
+        countRotation("revoked");
+        return Mono.just(new InvalidRefreshTokenException("Session has been revoked"));
+    }
+
+    private void countRotation(String outcome) {
+        meterRegistry.counter("auth.refresh.rotations", "outcome", outcome).increment();
+    }
+
+    /**
+     * Logout: end the token's session. Its token rows are revoked as well for one
+     * release, since nodes from before sessions only check the row.
+     */
+    @Transactional
+    public Mono<Void> revokeRefreshToken(String rawToken) {
+        return refreshTokenRepository.findByTokenHash(hashToken(rawToken))
+                .flatMap(token -> token.sessionId() != null
+                        ? authSessionRepository.revoke(token.sessionId())
+                                .then(refreshTokenRepository.revokeAllBySessionId(token.sessionId()))
+                        : refreshTokenRepository.revoke(token.id()))
+                .then();
+    }
+
+    public record RotationResult(String refreshToken, UUID userId, String email, String firstName) {}
+
+    private static String generateRandomToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return BASE64URL.encodeToString(bytes);
+    }
+
+    private static byte[] hashToken(String rawToken) {
+        return Sha256.digest(rawToken.getBytes(StandardCharsets.UTF_8));
+    }
+}
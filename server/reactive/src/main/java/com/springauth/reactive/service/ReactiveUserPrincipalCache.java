@@ -0,0 +1,55 @@
+package com.springauth.reactive.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springauth.dto.UserPrincipal;
+import com.springauth.reactive.repository.ReactiveUserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Principal cache for the bearer-token path. Asynchronous, so concurrent misses
+ * for one user share a single query and no caller blocks while it runs.
+ * Entries are bounded by size and TTL.
+ *
+ * This module does not listen on the invalidation bus, so account changes made
+ * elsewhere (a disabled user, say) only show up once an entry expires. The TTL is
+ * therefore short, in the range of the token epoch poll, rather than the servlet
+ * server's USER_CACHE_TTL.
+ */
+@Component
+public class ReactiveUserPrincipalCache {
+
+    private final ReactiveUserRepository userRepository;
+    private final AsyncCache<UUID, UserPrincipal> cache;
+
+    public ReactiveUserPrincipalCache(
+            ReactiveUserRepository userRepository,
+            @Value("${app.user-cache.ttl}") long ttl,
+            @Value("${app.user-cache.max-size}") long maxSize
+    ) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .buildAsync();
+    }
+
+    /**
+     * Returns the principal for a user id, loading it on a miss. Unknown ids complete empty and are not cached.
+     */
+    public Mono<UserPrincipal> get(UUID userId) {
+        // suppressCancel: one client going away must not cancel a load other requests wait on
+        return Mono.fromFuture(() -> cache.get(userId, (id, executor) -> load(id).toFuture()), true);
+    }
+
+    private Mono<UserPrincipal> load(UUID userId) {
+        return userRepository.findPrincipalById(userId)
+                .map(row -> new UserPrincipal(row.id(), row.email(), row.enabled(), List.of()));
+    }
+}
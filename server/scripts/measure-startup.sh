@@ -0,0 +1,73 @@
+#!/usr/bin/env bash
+# Startup time and time-to-first-request of the server in each launch mode.
+# Needs the database (docker compose up -d) and the artifacts of ./gradlew trainCds.
+#
+#   scripts/measure-startup.sh [runs-per-mode]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+PORT="${SERVER_PORT:-8443}"
+# The JDK that trained the archive; another one would silently start without CDS
+JAVA="$(cat build/cds/java-launcher 2>/dev/null)" || true
+if [ -z "$JAVA" ] || [ ! -x "$JAVA" ]; then
+    echo "build/cds/java-launcher is missing: run ./gradlew trainCds first" >&2
+    exit 1
+fi
+BOOT_JAR="$(ls build/libs/*.jar | grep -v -- '-plain.jar$' | head -n 1)"
+EXTRACTED_JAR="$(ls build/cds/application/*.jar | head -n 1)"
+ARCHIVE=build/cds/application.jsa
+LOG="$(mktemp)"
+trap 'rm -f "$LOG"' EXIT
+
+declare -A MODES=(
+    [1-jar]="-jar $BOOT_JAR"
+    [2-extracted]="-jar $EXTRACTED_JAR"
+    [3-aot]="-Dspring.aot.enabled=true -jar $EXTRACTED_JAR"
+    # -Xshare:on: fail instead of running without the archive if it can't be mapped
+    [4-cds]="-Xshare:on -XX:SharedArchiveFile=$ARCHIVE -jar $EXTRACTED_JAR"
+    [5-aot+cds]="-Xshare:on -XX:SharedArchiveFile=$ARCHIVE -Dspring.aot.enabled=true -jar $EXTRACTED_JAR"
+)
+
+now_millis() {
+    date +%s%3N
+}
+
+# First answer to a real endpoint: an unknown login goes through security, the controller and the DB
+first_request() {
+    curl -s -o /dev/null -w '%{http_code}' -X POST "http://localhost:$PORT/api/auth/login" \
+        -H 'Content-Type: application/json' \
+        -d '{"email":"startup-check@example.com","password":"startup-check"}' || true
+}
+
+printf '%-12s %12s %12s\n' mode started_ms first_req_ms
+for mode in $(printf '%s\n' "${!MODES[@]}" | sort); do
+    started_total=0
+    first_total=0
+    for _ in $(seq "$RUNS"); do
+        start=$(now_millis)
+        # shellcheck disable=SC2086
+        SERVER_PORT="$PORT" "$JAVA" ${MODES[$mode]} > "$LOG" 2>&1 &
+        pid=$!
+
+        until [ "$(first_request)" != "000" ]; do
+            if ! kill -0 "$pid" 2>/dev/null; then
+                echo "$mode: server exited, see output below" >&2
+                cat "$LOG" >&2
+                exit 1
+            fi
+            sleep 0.02
+        done
+        first=$(( $(now_millis) - start ))
+
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+
+        # "Started AuthApplication in 2.345 seconds (process running for 2.789)"
+        started=$(sed -n 's/.*Started AuthApplication in \([0-9.]*\) seconds.*/\1/p' "$LOG" | awk '{ printf "%d", $1 * 1000 }')
+        started_total=$(( started_total + started ))
+        first_total=$(( first_total + first ))
+    done
+    printf '%-12s %12d %12d\n' "${mode#*-}" $(( started_total / RUNS )) $(( first_total / RUNS ))
+done
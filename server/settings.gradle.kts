@@ -3,3 +3,6 @@ plugins {
 }
 
 rootProject.name = "spring-auth-server"
+
+include("benchmarks")
+include("reactive")
@@ -0,0 +1,22 @@
+package com.springauth.loadtest;
+
+/**
+ * The calls a virtual user makes. BEARER is the only one outside AuthController:
+ * an authenticated GET, so the JWT filter is measured on its own.
+ */
+enum Endpoint {
+
+    REGISTER("POST", "/api/auth/register"),
+    LOGIN("POST", "/api/auth/login"),
+    REFRESH("POST", "/api/auth/refresh"),
+    LOGOUT("POST", "/api/auth/logout"),
+    BEARER("GET", LoadTestProbeController.PATH);
+
+    final String method;
+    final String path;
+
+    Endpoint(String method, String path) {
+        this.method = method;
+        this.path = path;
+    }
+}
@@ -0,0 +1,65 @@
+package com.springauth.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and status counts of one endpoint, shared by all virtual users.
+ */
+final class EndpointStats {
+
+    // 1 µs .. 1 min at 3 significant digits
+    private final Histogram latencyMicros = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+
+    void record(int status, long elapsedNanos) {
+        latencyMicros.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), latencyMicros.getHighestTrackableValue()));
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    /**
+     * No HTTP status at all (connection refused, timeout).
+     */
+    void recordFailure() {
+        failures.increment();
+    }
+
+    long count() {
+        return latencyMicros.getTotalCount();
+    }
+
+    long errors() {
+        long errors = failures.sum();
+        for (Map.Entry<Integer, LongAdder> status : statuses.entrySet()) {
+            if (status.getKey() >= 400) {
+                errors += status.getValue().sum();
+            }
+        }
+        return errors;
+    }
+
+    double percentileMillis(double percentile) {
+        return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    double maxMillis() {
+        return latencyMicros.getMaxValue() / 1000.0;
+    }
+
+    Map<Integer, Long> statuses() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    long failures() {
+        return failures.sum();
+    }
+}
@@ -0,0 +1,62 @@
+package com.springauth.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Workload settings, read from loadtest.* system properties (the Gradle task
+ * forwards -Ploadtest.* to them).
+ *
+ * @param users    concurrent virtual users, each on its own virtual thread
+ * @param warmup   run time before latencies are recorded
+ * @param duration measured run time
+ * @param mix      relative weight of each call in a user's loop
+ * @param think    pause between two calls of the same user
+ */
+record LoadTestConfig(
+        int users,
+        Duration warmup,
+        Duration duration,
+        Map<Endpoint, Integer> mix,
+        Duration think,
+        Path reportDir
+) {
+
+    private static final String DEFAULT_MIX = "bearer=60,refresh=20,login=10,logout=5,register=5";
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.users", 50),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup", 15)),
+                Duration.ofSeconds(Long.getLong("loadtest.duration", 60)),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                Duration.ofMillis(Long.getLong("loadtest.think-millis", 0)),
+                Path.of(System.getProperty("loadtest.report-dir", "build/reports/loadtest"))
+        );
+    }
+
+    /**
+     * "bearer=60,refresh=20" -> {BEARER: 60, REFRESH: 20}. Calls not listed are not made
+     * (apart from each user's first registration).
+     */
+    static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Bad loadtest.mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Endpoint.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix has no positive weights");
+        }
+        return weights;
+    }
+}
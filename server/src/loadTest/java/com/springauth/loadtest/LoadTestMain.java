@@ -0,0 +1,89 @@
+package com.springauth.loadtest;
+
+import com.springauth.AuthApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Self-contained load test: starts an embedded Postgres and the full server on a
+ * random port in this JVM, drives it over real HTTP, then prints a report and
+ * writes results.json. Nothing external is needed, so it runs offline.
+ *
+ * Run with ./gradlew loadTest. Server settings can be overridden the same way,
+ * e.g. -Pspring.threads.virtual.enabled=true or -Papp.jwt.stateless-principal=true.
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             ConfigurableApplicationContext server = startServer(postgres)) {
+            int port = ((WebServerApplicationContext) server).getWebServer().getPort();
+            LoadTestReport report = run(URI.create("http://localhost:" + port), config);
+            report.print(System.out);
+            report.writeJson(config.reportDir().resolve("results.json"));
+            System.out.println("Results written to " + config.reportDir().resolve("results.json"));
+        }
+    }
+
+    /**
+     * Settings for the load-test server. They sit just below system properties and
+     * environment variables, so those still win, but above application.yml: as default
+     * properties they would lose to its ${DB_URL:...} defaults.
+     */
+    private static ConfigurableApplicationContext startServer(EmbeddedPostgres postgres) {
+        MapPropertySource loadTestProperties = new MapPropertySource("loadTest", Map.of(
+                "spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"),
+                "spring.datasource.username", "postgres",
+                "spring.datasource.password", "postgres",
+                "server.port", "0",
+                // Every virtual user comes from 127.0.0.1
+                "app.rate-limit.enabled", "false"
+        ));
+        return new SpringApplicationBuilder(AuthApplication.class)
+                .initializers(context -> context.getEnvironment().getPropertySources()
+                        .addAfter(StandardEnvironment.SYSTEM_ENVIRONMENT_PROPERTY_SOURCE_NAME, loadTestProperties))
+                .run();
+    }
+
+    private static LoadTestReport run(URI baseUri, LoadTestConfig config) throws InterruptedException {
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup().toNanos();
+        long end = measureFrom + config.duration().toNanos();
+
+        try (HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.users(); i++) {
+                users.execute(new VirtualUser(http, baseUri, config, stats, measureFrom, end));
+            }
+            users.shutdown();
+            if (!users.awaitTermination(config.warmup().plus(config.duration()).toSeconds() + 60, TimeUnit.SECONDS)) {
+                users.shutdownNow();
+            }
+        }
+
+        return new LoadTestReport(config, Duration.ofNanos(Math.min(System.nanoTime(), end) - measureFrom), stats);
+    }
+}
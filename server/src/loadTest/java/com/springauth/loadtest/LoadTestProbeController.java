@@ -0,0 +1,23 @@
+package com.springauth.loadtest;
+
+import com.springauth.dto.UserPrincipal;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Smallest possible authenticated endpoint, only on the load-test classpath.
+ * Stands in for the application's own bearer-protected APIs.
+ */
+@RestController
+class LoadTestProbeController {
+
+    static final String PATH = "/api/loadtest/me";
+
+    @GetMapping(PATH)
+    Map<String, Object> me(@AuthenticationPrincipal UserPrincipal principal) {
+        return Map.of("id", principal.id(), "email", principal.email());
+    }
+}
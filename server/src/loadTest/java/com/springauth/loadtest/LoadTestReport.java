@@ -0,0 +1,86 @@
+package com.springauth.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Throughput and latency percentiles per endpoint, as a console table and as JSON.
+ */
+record LoadTestReport(LoadTestConfig config, Duration measured, Map<Endpoint, EndpointStats> stats) {
+
+    private static final String ROW = "%-10s %9s %9s %9s %9s %9s %9s %9s %9s%n";
+
+    void print(PrintStream out) {
+        out.printf("%n%d users, %d s measured after %d s warmup%n%n",
+                config.users(), measured.toSeconds(), config.warmup().toSeconds());
+        out.printf(ROW, "endpoint", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        stats.forEach((endpoint, s) -> {
+            if (s.count() == 0 && s.failures() == 0) {
+                return;
+            }
+            out.printf(Locale.ROOT, ROW,
+                    endpoint.name().toLowerCase(Locale.ROOT),
+                    s.count(),
+                    format(s.count() / seconds()),
+                    s.errors(),
+                    format(s.percentileMillis(50)),
+                    format(s.percentileMillis(90)),
+                    format(s.percentileMillis(99)),
+                    format(s.percentileMillis(99.9)),
+                    format(s.maxMillis()));
+        });
+        out.println();
+        stats.forEach((endpoint, s) -> {
+            if (s.errors() > 0) {
+                out.printf("%s statuses: %s, no response: %d%n",
+                        endpoint.name().toLowerCase(Locale.ROOT), s.statuses(), s.failures());
+            }
+        });
+    }
+
+    void writeJson(Path file) throws IOException {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((endpoint, s) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("method", endpoint.method);
+            row.put("path", endpoint.path);
+            row.put("requests", s.count());
+            row.put("throughput", s.count() / seconds());
+            row.put("errors", s.errors());
+            row.put("noResponse", s.failures());
+            row.put("statuses", s.statuses());
+            row.put("p50Millis", s.percentileMillis(50));
+            row.put("p90Millis", s.percentileMillis(90));
+            row.put("p99Millis", s.percentileMillis(99));
+            row.put("p999Millis", s.percentileMillis(99.9));
+            row.put("maxMillis", s.maxMillis());
+            endpoints.put(endpoint.name().toLowerCase(Locale.ROOT), row);
+        });
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("users", config.users());
+        report.put("warmupSeconds", config.warmup().toSeconds());
+        report.put("measuredSeconds", seconds());
+        report.put("mix", config.mix());
+        report.put("endpoints", endpoints);
+
+        Files.createDirectories(file.getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+    }
+
+    private double seconds() {
+        return measured.toNanos() / 1e9;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+}
@@ -0,0 +1,219 @@
+package com.springauth.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * One simulated browser session: registers, then loops over the weighted mix,
+ * carrying its access token and refresh cookie the way the React client does.
+ *
+ * After a logout the user stays signed out until a drawn call needs a session;
+ * it then logs in first. That login counts against the login weight: the next
+ * drawn login is skipped, so the calls sent still follow the mix as long as the
+ * login weight is at least the logout weight.
+ *
+ * A user whose registration failed (e.g. shed with a 503) registers again
+ * instead, and one whose refresh was rejected is signed out, as the React client
+ * would be. Otherwise it would send cheap, failing calls for the rest of the run.
+ */
+final class VirtualUser implements Runnable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final String PASSWORD = "load-test-password";
+    private static final String REFRESH_COOKIE = "refresh_token=";
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final URI baseUri;
+    private final LoadTestConfig config;
+    private final Map<Endpoint, EndpointStats> stats;
+    private final long measureFromNanos;
+    private final long endNanos;
+
+    private final Endpoint[] weighted;
+    private String email;
+    private String accessToken;
+    private String refreshToken;
+    private boolean registered;
+    private boolean signedOut = true;
+    /** Logins made to restore a session that the next drawn logins make up for. */
+    private int loginsAhead;
+
+    VirtualUser(
+            HttpClient http,
+            URI baseUri,
+            LoadTestConfig config,
+            Map<Endpoint, EndpointStats> stats,
+            long measureFromNanos,
+            long endNanos
+    ) {
+        this.http = http;
+        this.baseUri = baseUri;
+        this.config = config;
+        this.stats = stats;
+        this.measureFromNanos = measureFromNanos;
+        this.endNanos = endNanos;
+        this.weighted = config.mix().entrySet().stream()
+                .flatMap(e -> Stream.generate(e::getKey).limit(e.getValue()))
+                .toArray(Endpoint[]::new);
+    }
+
+    @Override
+    public void run() {
+        register();
+        while (System.nanoTime() < endNanos && !Thread.currentThread().isInterrupted()) {
+            Endpoint next = weighted[ThreadLocalRandom.current().nextInt(weighted.length)];
+            if (next == Endpoint.LOGIN && loginsAhead > 0) {
+                loginsAhead--;
+                continue;
+            }
+            if (signedOut && next != Endpoint.REGISTER && next != Endpoint.LOGIN) {
+                if (registered) {
+                    login();
+                    loginsAhead++;
+                } else {
+                    register();
+                }
+                think();
+            }
+            switch (next) {
+                case REGISTER -> register();
+                case LOGIN -> login();
+                case REFRESH -> refresh();
+                case LOGOUT -> logout();
+                case BEARER -> bearer();
+            }
+            think();
+        }
+    }
+
+    private void register() {
+        email = "lt-" + ProcessHandle.current().pid() + "-" + SEQUENCE.incrementAndGet() + "@example.com";
+        String body = """
+                {"email":"%s","password":"%s","firstName":"Load","lastName":"Test"}""".formatted(email, PASSWORD);
+        registered = onAuthResponse(send(Endpoint.REGISTER, json(Endpoint.REGISTER, body)));
+    }
+
+    private void login() {
+        String body = """
+                {"email":"%s","password":"%s"}""".formatted(email, PASSWORD);
+        onAuthResponse(send(Endpoint.LOGIN, json(Endpoint.LOGIN, body)));
+    }
+
+    private void refresh() {
+        HttpResponse<String> response = send(Endpoint.REFRESH, withCookie(Endpoint.REFRESH));
+        if (response != null && response.statusCode() == 401) {
+            signOut();
+        } else {
+            onAuthResponse(response);
+        }
+    }
+
+    private void logout() {
+        send(Endpoint.LOGOUT, withCookie(Endpoint.LOGOUT));
+        signOut();
+    }
+
+    private void signOut() {
+        accessToken = null;
+        refreshToken = null;
+        signedOut = true;
+    }
+
+    private void bearer() {
+        HttpRequest.Builder request = request(Endpoint.BEARER).GET();
+        if (accessToken != null) {
+            request.header("Authorization", "Bearer " + accessToken);
+        }
+        send(Endpoint.BEARER, request.build());
+    }
+
+    private HttpRequest json(Endpoint endpoint, String body) {
+        return request(endpoint)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest withCookie(Endpoint endpoint) {
+        HttpRequest.Builder request = request(endpoint).POST(HttpRequest.BodyPublishers.noBody());
+        if (refreshToken != null) {
+            request.header("Cookie", REFRESH_COOKIE + refreshToken);
+        }
+        return request.build();
+    }
+
+    private HttpRequest.Builder request(Endpoint endpoint) {
+        return HttpRequest.newBuilder(baseUri.resolve(endpoint.path)).timeout(TIMEOUT);
+    }
+
+    /**
+     * Sends the request and records it if it started inside the measured window.
+     * Returns null if no response arrived.
+     */
+    private HttpResponse<String> send(Endpoint endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        boolean measured = start >= measureFromNanos;
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (measured) {
+                stats.get(endpoint).record(response.statusCode(), System.nanoTime() - start);
+            }
+            return response;
+        } catch (IOException e) {
+            if (measured) {
+                stats.get(endpoint).recordFailure();
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Takes the session from a successful register, login or refresh. Returns false
+     * if there was none.
+     */
+    private boolean onAuthResponse(HttpResponse<String> response) {
+        if (response == null || response.statusCode() >= 300) {
+            return false;
+        }
+        signedOut = false;
+        try {
+            JsonNode body = JSON.readTree(response.body());
+            accessToken = body.path("accessToken").asText(null);
+        } catch (IOException e) {
+            accessToken = null;
+        }
+        response.headers().allValues("Set-Cookie").stream()
+                .filter(cookie -> cookie.startsWith(REFRESH_COOKIE))
+                .map(cookie -> cookie.substring(REFRESH_COOKIE.length(), cookie.indexOf(';') < 0 ? cookie.length() : cookie.indexOf(';')))
+                .findFirst()
+                .ifPresent(token -> refreshToken = token);
+        return true;
+    }
+
+    private void think() {
+        if (config.think().isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(config.think());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.springauth.config;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.springauth.service.AuthRateLimiter;
+import com.springauth.service.InvalidationBus;
+import com.springauth.service.RefreshTokenPurgeService;
+import com.springauth.service.TokenEpochService;
+import com.springauth.service.UserPrincipalCache;
+import com.springauth.service.VerifiedTokenCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the counters the auth components already keep (cache stats, limiter
+ * rejections, purge totals) as meters, so none of them needs to know about Micrometer.
+ * Everything here is read at scrape time.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthMetrics implements MeterBinder {
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final UserPrincipalCache userPrincipalCache;
+    private final AuthRateLimiter authRateLimiter;
+    private final RefreshTokenPurgeService purgeService;
+    private final TokenEpochService tokenEpochService;
+    private final ObjectProvider<DatabaseConcurrencyLimitFilter> concurrencyLimitFilter;
+    private final ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor;
+    private final ObjectProvider<ReplicaLagMonitor> replicaLagMonitor;
+    private final ObjectProvider<InvalidationBus> invalidationBus;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCache(registry, "verified-token", verifiedTokenCache, VerifiedTokenCache::stats, VerifiedTokenCache::size);
+        bindCache(registry, "user-principal", userPrincipalCache, UserPrincipalCache::stats, UserPrincipalCache::size);
+
+        FunctionCounter.builder("auth.rate_limit.rejected", authRateLimiter, AuthRateLimiter::rejectedCount)
+                .description("Login/register attempts rejected by the rate limiter")
+                .register(registry);
+        Gauge.builder("auth.rate_limit.keys", authRateLimiter, AuthRateLimiter::trackedKeys)
+                .description("Client IPs and emails currently tracked by the rate limiter")
+                .register(registry);
+
+        FunctionCounter.builder("auth.refresh.purge.deleted", purgeService, RefreshTokenPurgeService::deletedRowCount)
+                .description("Expired refresh token rows deleted")
+                .register(registry);
+        FunctionCounter.builder("auth.refresh.purge.sessions.deleted", purgeService, RefreshTokenPurgeService::deletedSessionCount)
+                .register(registry);
+        FunctionCounter.builder("auth.refresh.purge.partitions.dropped", purgeService, RefreshTokenPurgeService::droppedPartitionCount)
+                .register(registry);
+        FunctionCounter.builder("auth.refresh.purge.runs", purgeService, RefreshTokenPurgeService::runCount)
+                .register(registry);
+        FunctionCounter.builder("auth.refresh.purge.skipped", purgeService, RefreshTokenPurgeService::skippedRunCount)
+                .description("Purge runs skipped because another node held the lock")
+                .register(registry);
+        Gauge.builder("auth.refresh.purge.last.duration", purgeService, RefreshTokenPurgeService::lastRunMillis)
+                .baseUnit("milliseconds")
+                .register(registry);
+
+        Gauge.builder("auth.token_epoch.users", tokenEpochService, TokenEpochService::size)
+                .description("Users with a token epoch held in memory")
+                .register(registry);
+
+        concurrencyLimitFilter.ifAvailable(filter -> {
+            Gauge.builder("auth.db_limiter.available", filter, DatabaseConcurrencyLimitFilter::availablePermits)
+                    .register(registry);
+            Gauge.builder("auth.db_limiter.queued", filter, DatabaseConcurrencyLimitFilter::queueLength)
+                    .register(registry);
+        });
+        replicaLagMonitor.ifAvailable(monitor -> {
+            Gauge.builder("auth.db.replica.lag", monitor, ReplicaLagMonitor::lagMillis)
+                    .description("Replica lag at the last check, -1 if unknown")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            Gauge.builder("auth.db.replica.usable", monitor, m -> m.isReplicaUsable() ? 1 : 0)
+                    .description("1 while read-only transactions are routed to the replica")
+                    .register(registry);
+        });
+        invalidationBus.ifAvailable(bus -> {
+            FunctionCounter.builder("auth.invalidation.published", bus, InvalidationBus::publishedCount)
+                    .register(registry);
+            FunctionCounter.builder("auth.invalidation.received", bus, InvalidationBus::receivedCount)
+                    .description("Invalidations from other nodes applied here")
+                    .register(registry);
+            FunctionCounter.builder("auth.invalidation.resyncs", bus, InvalidationBus::resyncCount)
+                    .description("Full cache resyncs after the listener (re)connected")
+                    .register(registry);
+            Gauge.builder("auth.invalidation.connected", bus, b -> b.isConnected() ? 1 : 0)
+                    .register(registry);
+        });
+        pinningMonitor.ifAvailable(monitor ->
+                FunctionCounter.builder("jvm.threads.virtual.pinned", monitor, VirtualThreadPinningMonitor::pinnedEventCount)
+                        .description("Virtual thread pinning events above the logging threshold")
+                        .register(registry));
+    }
+
+    /**
+     * Meters hold their source weakly, so they are bound to the cache bean itself, not to a lambda over it.
+     */
+    private static <T> void bindCache(
+            MeterRegistry registry,
+            String name,
+            T cache,
+            Function<T, CacheStats> stats,
+            ToDoubleFunction<T> size
+    ) {
+        FunctionCounter.builder("auth.cache.gets", cache, c -> stats.apply(c).hitCount())
+                .tags("cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("auth.cache.gets", cache, c -> stats.apply(c).missCount())
+                .tags("cache", name, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("auth.cache.evictions", cache, c -> stats.apply(c).evictionCount())
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("auth.cache.size", cache, size)
+                .tag("cache", name)
+                .register(registry);
+    }
+}
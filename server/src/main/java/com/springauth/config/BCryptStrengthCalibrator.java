@@ -0,0 +1,46 @@
+package com.springauth.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+/**
+ * Picks the BCrypt work factor that comes closest to a target time per hash
+ * on the current machine without exceeding it.
+ */
+@Slf4j
+final class BCryptStrengthCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+    private static final int SAMPLES = 3;
+
+    private BCryptStrengthCalibrator() {}
+
+    static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode(SAMPLE_PASSWORD); // warm-up
+
+        // Each extra cost round doubles the work, so time the cheapest cost and extrapolate
+        double baseMillis = medianMillis(probe);
+        int strength = minStrength;
+        while (strength < maxStrength && baseMillis * (1L << (strength + 1 - minStrength)) <= targetMillis) {
+            strength++;
+        }
+
+        log.info("BCrypt calibrated to strength {} (~{} ms per hash, target {} ms)",
+                strength, Math.round(baseMillis * (1L << (strength - minStrength))), targetMillis);
+        return strength;
+    }
+
+    private static double medianMillis(BCryptPasswordEncoder encoder) {
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.springauth.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * With virtual threads every request gets its own thread, so nothing stops
+ * thousands of them from queueing inside the JDBC pool. This caps the number of
+ * in-flight DB-bound requests at a multiple of the pool size and sheds the rest
+ * with 503 once they have waited too long. DB-bound means the /api/auth endpoints
+ * and every request with a bearer token, whose principal lookup may miss the cache.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class DatabaseConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String LIMITED_PATH_PREFIX = "/api/auth/";
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMillis;
+    private final long retryAfterSeconds;
+
+    public DatabaseConcurrencyLimitFilter(
+            @Value("${spring.datasource.hikari.maximum-pool-size}") int poolSize,
+            @Value("${app.virtual-threads.permits-per-connection}") double permitsPerConnection,
+            @Value("${app.virtual-threads.acquire-timeout}") long acquireTimeoutMillis,
+            @Value("${app.virtual-threads.retry-after}") long retryAfterSeconds
+    ) {
+        this.permits = new Semaphore(Math.max(1, (int) Math.round(poolSize * permitsPerConnection)), true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (request.getRequestURI().startsWith(LIMITED_PATH_PREFIX)) {
+            return false;
+        }
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return authHeader == null || !authHeader.startsWith("Bearer ");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(
+                    "{\"status\":503,\"error\":\"Service unavailable\",\"message\":\"Server is busy, please retry shortly\"}");
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int queueLength() {
+        return permits.getQueueLength();
+    }
+}
@@ -1,27 +1,59 @@
 package com.springauth.config;
 
-import com.springauth.repository.UserRepository;
+import com.springauth.dto.UserPrincipal;
 import com.springauth.service.JwtService;
+import com.springauth.service.TokenEpochService;
+import com.springauth.service.UserPrincipalCache;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
+    private final TokenEpochService tokenEpochService;
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+
+    private final Timer authenticatedTimer;
+    private final Timer rejectedTimer;
+
+    /**
+     * When true, the principal is built from token claims alone (no DB lookup per request).
+     */
+    @Value("${app.jwt.stateless-principal}")
+    private boolean statelessPrincipal;
+
+    public JwtAuthenticationFilter(
+            JwtService jwtService,
+            UserPrincipalCache userPrincipalCache,
+            TokenEpochService tokenEpochService,
+            MeterRegistry meterRegistry
+    ) {
+        this.jwtService = jwtService;
+        this.userPrincipalCache = userPrincipalCache;
+        this.tokenEpochService = tokenEpochService;
+        this.authenticatedTimer = filterTimer(meterRegistry, "authenticated");
+        this.rejectedTimer = filterTimer(meterRegistry, "rejected");
+    }
 
     @Override
     protected void doFilterInternal(
@@ -37,20 +69,54 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        String token = authHeader.substring(7);
+        long start = System.nanoTime();
+        boolean authenticated = authenticate(request, authHeader.substring(7));
+        (authenticated ? authenticatedTimer : rejectedTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
-        if (jwtService.isTokenValid(token)) {
-            String userId = jwtService.extractUserId(token);
+        filterChain.doFilter(request, response);
+    }
 
-            userRepository.findById(UUID.fromString(userId)).ifPresent(user -> {
-                var authToken = new UsernamePasswordAuthenticationToken(
-                        user, null, user.getAuthorities()
-                );
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            });
+    /**
+     * Verifies the bearer token and sets the security context. Returns false if the token was not accepted.
+     */
+    private boolean authenticate(HttpServletRequest request, String token) {
+        Optional<Claims> claims = jwtService.parseToken(token);
+        if (claims.isEmpty()) {
+            return false;
         }
 
-        filterChain.doFilter(request, response);
+        UUID userId = UUID.fromString(claims.get().getSubject());
+
+        if (tokenEpochService.isRevoked(userId, JwtService.issuedAtMillis(claims.get()))) {
+            // Issued before the user's last "logout everywhere"
+            return false;
+        }
+
+        if (statelessPrincipal) {
+            var principal = jwtService.toPrincipal(claims.get());
+            authenticate(request, principal, principal.authorities());
+            return true;
+        }
+
+        Optional<UserPrincipal> principal = userPrincipalCache.get(userId).filter(UserPrincipal::enabled);
+        principal.ifPresent(p -> authenticate(request, p, p.authorities()));
+        return principal.isPresent();
+    }
+
+    private void authenticate(
+            HttpServletRequest request,
+            Object principal,
+            Collection<? extends GrantedAuthority> authorities
+    ) {
+        var authToken = new UsernamePasswordAuthenticationToken(principal, null, authorities);
+        authToken.setDetails(detailsSource.buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+
+    private static Timer filterTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auth.filter")
+                .description("Bearer token authentication in JwtAuthenticationFilter")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 }
@@ -0,0 +1,55 @@
+package com.springauth.config;
+
+import com.springauth.repository.ReplicaRouting;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Where read-only connections come from: the replica while it is healthy and
+ * caught up, otherwise (or inside {@link ReplicaRouting#onPrimary}) the primary.
+ * If the replica can't hand out a connection, the read goes to the primary and
+ * the replica stays out of use until the next successful lag check.
+ */
+class ReadOnlyRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor lagMonitor;
+
+    ReadOnlyRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (useReplica()) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                lagMonitor.replicaFailed(e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (useReplica()) {
+            try {
+                return replica.getConnection(username, password);
+            } catch (SQLException e) {
+                lagMonitor.replicaFailed(e);
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    private boolean useReplica() {
+        return !ReplicaRouting.isPrimaryForced() && lagMonitor.isReplicaUsable();
+    }
+}
@@ -0,0 +1,148 @@
+package com.springauth.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Measures how far the read replica is behind the primary. Reads are routed to the
+ * replica only while the last check succeeded, its WAL receiver was streaming and
+ * the lag was within the limit.
+ *
+ * Lag is measured against the primary, not from the replica's own view: each check
+ * records the primary's current WAL position, and the lag is the age of the oldest
+ * recorded position the replica has not replayed yet. A replica whose WAL receiver
+ * stalled or disconnected therefore shows growing lag instead of looking caught up.
+ * The resolution is one check interval.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String PRIMARY_POSITION_QUERY = "SELECT pg_current_wal_lsn()::text";
+
+    // The replica itself reports no receiver row while it is not in recovery
+    private static final String REPLICA_POSITION_QUERY = """
+            SELECT pg_is_in_recovery() AS in_recovery,
+                   coalesce((SELECT status = 'streaming' FROM pg_stat_wal_receiver), false) AS streaming,
+                   pg_last_wal_replay_lsn()::text AS replay_lsn
+            """;
+
+    /** Enough for several minutes of checks; beyond that the oldest sample decides anyway. */
+    private static final int MAX_SAMPLES = 1024;
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+
+    /** Primary WAL positions not yet replayed by the replica, oldest first. */
+    private final Deque<Sample> pending = new ArrayDeque<>();
+
+    private volatile boolean usable;
+    private volatile long lagMillis = -1;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, long maxLagMillis) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLagMillis;
+        check();
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval}")
+    public synchronized void check() {
+        boolean wasUsable = usable;
+        boolean streaming;
+        try {
+            long now = System.currentTimeMillis();
+            recordPrimaryPosition(now, lsn(primary.queryForObject(PRIMARY_POSITION_QUERY, String.class)));
+            ReplicaPosition position = replica.queryForObject(REPLICA_POSITION_QUERY, (rs, row) -> new ReplicaPosition(
+                    rs.getBoolean("in_recovery"), rs.getBoolean("streaming"), rs.getString("replay_lsn")));
+            if (position.inRecovery()) {
+                long replayed = lsn(position.replayLsn());
+                while (!pending.isEmpty() && pending.peekFirst().lsn() <= replayed) {
+                    pending.pollFirst();
+                }
+                streaming = position.streaming();
+            } else {
+                // Pointed at the primary itself (e.g. local setups): nothing to lag behind
+                pending.clear();
+                streaming = true;
+            }
+            lagMillis = pending.isEmpty() ? 0 : now - pending.peekFirst().takenAt();
+            usable = streaming && lagMillis <= maxLagMillis;
+        } catch (RuntimeException e) {
+            lagMillis = -1;
+            usable = false;
+            if (wasUsable) {
+                log.warn("Read replica lag could not be measured, routing reads to the primary", e);
+            }
+            return;
+        }
+
+        if (wasUsable && !usable) {
+            if (!streaming) {
+                log.warn("Read replica is not streaming from the primary, routing reads to the primary");
+            } else {
+                log.warn("Read replica lag {} ms exceeds {} ms, routing reads to the primary", lagMillis, maxLagMillis);
+            }
+        } else if (!wasUsable && usable) {
+            log.info("Read replica caught up (lag {} ms), routing reads to it", lagMillis);
+        }
+    }
+
+    private void recordPrimaryPosition(long now, long lsn) {
+        Sample last = pending.peekLast();
+        if (last != null && last.lsn() >= lsn) {
+            return;
+        }
+        if (pending.size() >= MAX_SAMPLES) {
+            // Keep the oldest, which sets the lag; replace the newest
+            pending.pollLast();
+        }
+        pending.addLast(new Sample(now, lsn));
+    }
+
+    /**
+     * Parses a pg_lsn such as "16/B374D848" into a comparable position.
+     */
+    static long lsn(String value) {
+        if (value == null) {
+            throw new IllegalStateException("WAL position not available");
+        }
+        int slash = value.indexOf('/');
+        return (Long.parseLong(value.substring(0, slash), 16) << 32) | Long.parseLong(value.substring(slash + 1), 16);
+    }
+
+    /**
+     * A request could not get a replica connection: stop routing reads there until
+     * the next check finds it healthy again.
+     */
+    public void replicaFailed(Exception e) {
+        boolean wasUsable = usable;
+        usable = false;
+        lagMillis = -1;
+        if (wasUsable) {
+            log.warn("Read replica connection failed, routing reads to the primary", e);
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    /**
+     * Lag at the last check in ms, or -1 if it could not be measured.
+     */
+    public long lagMillis() {
+        return lagMillis;
+    }
+
+    private record Sample(long takenAt, long lsn) {
+    }
+
+    private record ReplicaPosition(boolean inRecovery, boolean streaming, String replayLsn) {
+    }
+}
@@ -4,6 +4,7 @@ import com.springauth.dto.AuthResponse;
 import com.springauth.dto.LoginRequest;
 import com.springauth.dto.RegisterRequest;
 import com.springauth.exception.InvalidRefreshTokenException;
+import com.springauth.service.AuthRateLimiter;
 import com.springauth.service.AuthService;
 import com.springauth.service.AuthService.AuthResult;
 import jakarta.servlet.http.Cookie;
@@ -29,6 +30,7 @@ public class AuthController {
     private static final String REFRESH_TOKEN_COOKIE = "refresh_token";
 
     private final AuthService authService;
+    private final AuthRateLimiter rateLimiter;
 
     @Value("${app.jwt.refresh-token-expiry}")
     private long refreshTokenExpiry;
@@ -36,8 +38,10 @@ public class AuthController {
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(
             @Valid @RequestBody RegisterRequest request,
+            HttpServletRequest httpRequest,
             HttpServletResponse response
     ) {
+        rateLimiter.check(httpRequest.getRemoteAddr(), request.email());
         AuthResult result = authService.register(request);
         setRefreshTokenCookie(response, result.refreshToken());
         return ResponseEntity.status(HttpStatus.CREATED).body(result.response());
@@ -46,8 +50,10 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(
             @Valid @RequestBody LoginRequest request,
+            HttpServletRequest httpRequest,
             HttpServletResponse response
     ) {
+        rateLimiter.check(httpRequest.getRemoteAddr(), request.email());
         AuthResult result = authService.login(request);
         setRefreshTokenCookie(response, result.refreshToken());
         return ResponseEntity.ok(result.response());
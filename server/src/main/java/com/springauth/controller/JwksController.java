@@ -0,0 +1,38 @@
+package com.springauth.controller;
+
+import com.springauth.service.JwtKeyRing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes the public signing keys (RFC 7517 JWK set) so other services can
+ * verify access tokens themselves. Cacheable: new keys should be added to the
+ * keys file as retiring keys at least one max-age before they become active.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+
+    @Value("${app.jwt.jwks-max-age}")
+    private long jwksMaxAge;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(jwksMaxAge))
+                        .cachePublic()
+                        .staleWhileRevalidate(Duration.ofSeconds(jwksMaxAge))
+                        .staleIfError(Duration.ofDays(1)))
+                .body(Map.of("keys", keyRing.publicJwks()));
+    }
+}
@@ -0,0 +1,18 @@
+package com.springauth.dto;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Lightweight authenticated principal, built from verified token claims or
+ * loaded from the users table, used instead of the User entity on the request path.
+ */
+public record UserPrincipal(
+        UUID id,
+        String email,
+        boolean enabled,
+        Collection<? extends GrantedAuthority> authorities
+) {
+}
@@ -0,0 +1,51 @@
+package com.springauth.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A login on one device: the family of refresh tokens produced by rotating the
+ * token issued at login. Revoking the session is one row update, however many
+ * rotations it has been through.
+ */
+@Entity
+@Table(name = "auth_sessions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuthSession {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private boolean revoked = false;
+
+    /**
+     * Compared with the user's tokensValidAfter: sessions started before a
+     * "logout everywhere" are dead without being updated.
+     */
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = Instant.now();
+    }
+
+    public boolean isActive() {
+        Instant validAfter = user.getTokensValidAfter();
+        return !revoked && (validAfter == null || !createdAt.isBefore(validAfter));
+    }
+}
@@ -19,13 +19,24 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "token_hash", nullable = false, unique = true)
-    private String tokenHash;
+    /**
+     * Raw 32-byte SHA-256 of the token, stored as bytea. Half the size of the old hex
+     * column ("token_hash"), which stays in the table only until the cutover completes.
+     */
+    @Column(name = "token_digest", unique = true, length = 32)
+    private byte[] tokenHash;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    /**
+     * The login this token descends from. Null only for tokens issued before sessions existed.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "session_id")
+    private AuthSession session;
+
     @Column(name = "expires_at", nullable = false)
     private Instant expiresAt;
 
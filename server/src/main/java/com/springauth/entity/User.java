@@ -23,7 +23,8 @@ public class User implements UserDetails {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @Column(nullable = false, unique = true)
+    // Unique case-insensitively, via the users_email_lower_key index
+    @Column(nullable = false)
     private String email;
 
     @Column(name = "password_hash", nullable = false)
@@ -39,6 +40,12 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private boolean enabled = true;
 
+    /**
+     * Access tokens issued before this instant are rejected ("logout everywhere").
+     */
+    @Column(name = "tokens_valid_after")
+    private Instant tokensValidAfter;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
 
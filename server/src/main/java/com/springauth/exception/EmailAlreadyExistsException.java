@@ -2,6 +2,9 @@ package com.springauth.exception;
 
 public class EmailAlreadyExistsException extends RuntimeException {
 
+    /** The case-insensitive unique index on users.email (V4); only its violations mean this. */
+    public static final String EMAIL_KEY = "users_email_lower_key";
+
     public EmailAlreadyExistsException(String email) {
         super("Email already registered: " + email);
     }
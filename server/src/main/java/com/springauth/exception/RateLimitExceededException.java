@@ -0,0 +1,15 @@
+package com.springauth.exception;
+
+import lombok.Getter;
+
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(long retryAfterSeconds) {
+        // No stack trace: rejections must stay cheap under a credential-stuffing run
+        super("Too many attempts, please retry later", null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,14 @@
+package com.springauth.exception;
+
+import lombok.Getter;
+
+@Getter
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(long retryAfterSeconds) {
+        super("Server is busy, please retry shortly");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
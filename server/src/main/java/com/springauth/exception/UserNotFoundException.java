@@ -0,0 +1,10 @@
+package com.springauth.exception;
+
+import java.util.UUID;
+
+public class UserNotFoundException extends RuntimeException {
+
+    public UserNotFoundException(UUID userId) {
+        super("User not found: " + userId);
+    }
+}
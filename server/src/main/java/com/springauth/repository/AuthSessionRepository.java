@@ -0,0 +1,15 @@
+package com.springauth.repository;
+
+import com.springauth.entity.AuthSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.UUID;
+
+public interface AuthSessionRepository extends JpaRepository<AuthSession, UUID> {
+
+    @Modifying
+    @Query("UPDATE AuthSession s SET s.revoked = true WHERE s.id = :sessionId AND s.revoked = false")
+    int revoke(UUID sessionId);
+}
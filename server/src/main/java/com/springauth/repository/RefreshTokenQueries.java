@@ -0,0 +1,34 @@
+package com.springauth.repository;
+
+/**
+ * Native SQL shared by the servlet and reactive repositories. Kept out of
+ * RefreshTokenRepository so the reactive module can use it without JPA on its classpath.
+ */
+public final class RefreshTokenQueries {
+
+    /**
+     * Rotation: revokes the token only if it is still live and its session is neither
+     * revoked nor older than the user's last "logout everywhere". Each repository
+     * selects the returned columns from {@code rotated} with its own aliases.
+     */
+    public static final String ROTATE_IF_ACTIVE = """
+            WITH rotated AS (
+                UPDATE refresh_tokens t
+                SET revoked = true
+                FROM users u
+                WHERE t.token_digest = :tokenHash AND t.revoked = false AND t.expires_at > now()
+                  AND u.id = t.user_id
+                  -- tokens from before sessions existed: check the epoch on the token itself
+                  AND (t.session_id IS NOT NULL OR u.tokens_valid_after IS NULL OR t.created_at >= u.tokens_valid_after)
+                  AND NOT EXISTS (
+                      SELECT 1 FROM auth_sessions s
+                      WHERE s.id = t.session_id
+                        AND (s.revoked OR s.created_at < u.tokens_valid_after)
+                  )
+                RETURNING t.user_id, t.session_id, u.email, u.first_name
+            )
+            """;
+
+    private RefreshTokenQueries() {
+    }
+}
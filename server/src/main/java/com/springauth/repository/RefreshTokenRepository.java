@@ -5,18 +5,115 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
 
-    Optional<RefreshToken> findByTokenHash(String tokenHash);
+    /**
+     * The token with its session and owner columns in one joined select, without
+     * loading (and dirty-checking) RefreshToken, AuthSession or User entities.
+     */
+    @Query("""
+            SELECT t.id AS id, t.revoked AS revoked, t.expiresAt AS expiresAt, t.createdAt AS createdAt,
+                   u.id AS userId, u.tokensValidAfter AS tokensValidAfter,
+                   s.id AS sessionId, s.revoked AS sessionRevoked, s.createdAt AS sessionCreatedAt
+            FROM RefreshToken t
+            JOIN t.user u
+            LEFT JOIN t.session s
+            WHERE t.tokenHash = :tokenHash
+            """)
+    Optional<TokenState> findStateByTokenHash(byte[] tokenHash);
 
+    /**
+     * Rotation in one round trip: revokes the token only if it is still live and its
+     * session is neither revoked nor older than the user's last "logout everywhere",
+     * and returns the owner's fields the response needs. Empty means the token is
+     * unknown, already used, expired, or belongs to a dead session.
+     * Aliases are quoted: unquoted, Postgres folds them to lower case and the
+     * projection's getUserId() etc. would depend on a case-insensitive lookup.
+     */
+    @Query(value = RefreshTokenQueries.ROTATE_IF_ACTIVE + """
+            SELECT user_id AS "userId", session_id AS "sessionId", email, first_name AS "firstName"
+            FROM rotated
+            """, nativeQuery = true)
+    Optional<TokenOwner> revokeIfActive(byte[] tokenHash);
+
+    /**
+     * Hex-to-binary cutover: fills in the digest of a row written in the legacy hex format.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE refresh_tokens
+            SET token_digest = :tokenHash
+            WHERE token_hash = :legacyHexHash AND token_digest IS NULL
+            """, nativeQuery = true)
+    int adoptLegacyHash(byte[] tokenHash, String legacyHexHash);
+
+    /**
+     * Hex-to-binary cutover: also writes the legacy hex column, so nodes that only
+     * know that column still find tokens minted here during a rolling deploy.
+     */
     @Modifying
-    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.user.id = :userId AND r.revoked = false")
-    void revokeAllByUserId(UUID userId);
+    @Query(value = "UPDATE refresh_tokens SET token_hash = :legacyHexHash WHERE id = :id", nativeQuery = true)
+    int writeLegacyHash(Long id, String legacyHexHash);
 
+    /**
+     * Revokes a single token from before sessions existed.
+     */
     @Modifying
-    @Query("DELETE FROM RefreshToken r WHERE r.revoked = true OR r.expiresAt < CURRENT_TIMESTAMP")
-    void deleteExpiredAndRevoked();
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.id = :id")
+    int revoke(Long id);
+
+    /**
+     * Compatibility for one release: nodes from before sessions only stop rotating
+     * tokens whose own row is revoked. Remove once every node checks sessions.
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.session.id = :sessionId AND t.revoked = false")
+    int revokeAllBySessionId(UUID sessionId);
+
+    /**
+     * Compatibility for one release, like {@link #revokeAllBySessionId}.
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.user.id = :userId AND t.revoked = false")
+    int revokeAllByUserId(UUID userId);
+
+    interface TokenState {
+        Long getId();
+        boolean isRevoked();
+        Instant getExpiresAt();
+        Instant getCreatedAt();
+        UUID getUserId();
+        Instant getTokensValidAfter();
+        /** Null for tokens issued before sessions existed. */
+        UUID getSessionId();
+        Boolean getSessionRevoked();
+        Instant getSessionCreatedAt();
+
+        default boolean isExpired() {
+            return Instant.now().isAfter(getExpiresAt());
+        }
+
+        /**
+         * Same rule as AuthSession.isActive: not logged out, and started after the last "logout everywhere".
+         * Tokens from before sessions check the epoch against their own creation, as revokeIfActive does.
+         */
+        default boolean isSessionActive() {
+            Instant validAfter = getTokensValidAfter();
+            if (getSessionId() == null) {
+                return validAfter == null || !getCreatedAt().isBefore(validAfter);
+            }
+            return !getSessionRevoked() && (validAfter == null || !getSessionCreatedAt().isBefore(validAfter));
+        }
+    }
+
+    interface TokenOwner {
+        UUID getUserId();
+        UUID getSessionId();
+        String getEmail();
+        String getFirstName();
+    }
 }
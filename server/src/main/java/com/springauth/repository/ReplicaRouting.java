@@ -0,0 +1,36 @@
+package com.springauth.repository;
+
+import java.util.function.Supplier;
+
+/**
+ * Read-only transactions go to the read replica when one is configured. Reads that
+ * must see a write that may not have replicated yet run inside {@link #onPrimary}.
+ * Without a replica this is a no-op.
+ */
+public final class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = new ThreadLocal<>();
+
+    private ReplicaRouting() {
+    }
+
+    /**
+     * Runs the action with every connection it opens taken from the primary.
+     * Must wrap the transaction, not run inside one that already holds a connection.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        if (Boolean.TRUE.equals(PRIMARY_FORCED.get())) {
+            return action.get();
+        }
+        PRIMARY_FORCED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            PRIMARY_FORCED.remove();
+        }
+    }
+
+    public static boolean isPrimaryForced() {
+        return Boolean.TRUE.equals(PRIMARY_FORCED.get());
+    }
+}
@@ -2,13 +2,64 @@ package com.springauth.repository;
 
 import com.springauth.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface UserRepository extends JpaRepository<User, UUID> {
 
-    Optional<User> findByEmail(String email);
+    /**
+     * What login needs, without a managed entity. Case-insensitive; lower(email)
+     * matches the users_email_lower_key index.
+     */
+    @Transactional(readOnly = true)
+    @Query("""
+            SELECT u.id AS id, u.email AS email, u.passwordHash AS passwordHash,
+                   u.firstName AS firstName, u.enabled AS enabled
+            FROM User u WHERE lower(u.email) = lower(:email)
+            """)
+    Optional<LoginCredentials> findCredentialsByEmail(String email);
 
-    boolean existsByEmail(String email);
+    /**
+     * What the bearer filter's principal needs, without a managed entity.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT u.id AS id, u.email AS email, u.enabled AS enabled FROM User u WHERE u.id = :userId")
+    Optional<PrincipalView> findPrincipalById(UUID userId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.id = :userId")
+    void updatePasswordHash(UUID userId, String passwordHash);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.tokensValidAfter = :validAfter WHERE u.id = :userId")
+    void updateTokensValidAfter(UUID userId, Instant validAfter);
+
+    @Query("SELECT u.id AS userId, u.tokensValidAfter AS validAfter FROM User u WHERE u.tokensValidAfter > :since")
+    List<TokenEpoch> findTokenEpochsChangedSince(Instant since);
+
+    interface LoginCredentials {
+        UUID getId();
+        String getEmail();
+        String getPasswordHash();
+        String getFirstName();
+        boolean isEnabled();
+    }
+
+    interface PrincipalView {
+        UUID getId();
+        String getEmail();
+        boolean isEnabled();
+    }
+
+    interface TokenEpoch {
+        UUID getUserId();
+        Instant getValidAfter();
+    }
 }
@@ -0,0 +1,67 @@
+package com.springauth.service;
+
+import com.springauth.exception.RateLimitExceededException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throttles login and register per client IP and per email, before any password
+ * hashing or DB work. A rejected attempt costs a map lookup and a CAS.
+ */
+@Service
+public class AuthRateLimiter {
+
+    private final boolean enabled;
+    private final RateLimiter byIp;
+    private final RateLimiter byEmail;
+    private final LongAdder rejected = new LongAdder();
+
+    public AuthRateLimiter(
+            @Value("${app.rate-limit.enabled}") boolean enabled,
+            @Value("${app.rate-limit.ip.rate-per-minute}") int ipRate,
+            @Value("${app.rate-limit.ip.burst}") int ipBurst,
+            @Value("${app.rate-limit.email.rate-per-minute}") int emailRate,
+            @Value("${app.rate-limit.email.burst}") int emailBurst,
+            @Value("${app.rate-limit.max-keys}") long maxKeys
+    ) {
+        this.enabled = enabled;
+        this.byIp = new RateLimiter(ipRate, ipBurst, maxKeys);
+        this.byEmail = new RateLimiter(emailRate, emailBurst, maxKeys);
+    }
+
+    /**
+     * Throws {@link RateLimitExceededException} (429) if either the IP or the email is over its limit.
+     * A rejected attempt consumes nothing from either limit.
+     */
+    public void check(String clientIp, String email) {
+        if (!enabled) {
+            return;
+        }
+
+        long waitNanos = byIp.tryAcquire(clientIp);
+        if (waitNanos == 0 && email != null) {
+            waitNanos = byEmail.tryAcquire(email.toLowerCase(Locale.ROOT));
+            if (waitNanos > 0) {
+                // Hammering one locked email must not use up the IP's budget for others
+                byIp.release(clientIp);
+            }
+        }
+
+        if (waitNanos > 0) {
+            rejected.increment();
+            throw new RateLimitExceededException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1));
+        }
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    public long trackedKeys() {
+        return byIp.size() + byEmail.size();
+    }
+}
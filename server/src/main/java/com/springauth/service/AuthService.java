@@ -3,47 +3,57 @@ package com.springauth.service;
 import com.springauth.dto.AuthResponse;
 import com.springauth.dto.LoginRequest;
 import com.springauth.dto.RegisterRequest;
-import com.springauth.entity.RefreshToken;
 import com.springauth.entity.User;
 import com.springauth.exception.EmailAlreadyExistsException;
 import com.springauth.exception.InvalidCredentialsException;
 import com.springauth.exception.InvalidRefreshTokenException;
+import com.springauth.repository.ReplicaRouting;
 import com.springauth.repository.UserRepository;
+import com.springauth.repository.UserRepository.LoginCredentials;
+import com.springauth.service.TokenService.RotationResult;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Optional;
+
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
     private final TokenService tokenService;
 
     /**
      * Register: create user, return access token + refresh token (raw).
-     * Returns String[] = { accessToken, rawRefreshToken }
+     * A single INSERT; the case-insensitive unique index on email rejects
+     * duplicates, including two concurrent signups for the same address.
      */
     @Transactional
     public AuthResult register(RegisterRequest request) {
-        if (userRepository.existsByEmail(request.email())) {
-            throw new EmailAlreadyExistsException(request.email());
-        }
-
         User user = User.builder()
                 .email(request.email())
-                .passwordHash(passwordEncoder.encode(request.password()))
+                .passwordHash(passwordHashingService.encode(request.password()))
                 .firstName(request.firstName())
                 .lastName(request.lastName())
                 .build();
 
-        userRepository.save(user);
+        try {
+            // Flush now so a duplicate surfaces here, not at commit
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateEmail(e)) {
+                throw new EmailAlreadyExistsException(request.email());
+            }
+            throw e;
+        }
 
         String accessToken = jwtService.generateAccessToken(user);
-        String refreshToken = tokenService.createRefreshToken(user);
+        String refreshToken = tokenService.createRefreshToken(user.getId());
 
         return new AuthResult(
                 new AuthResponse(accessToken, user.getEmail(), user.getFirstName()),
@@ -51,20 +61,45 @@ public class AuthService {
         );
     }
 
+    /**
+     * Only a unique violation of the email index means the address is taken; any
+     * other integrity error is a bug and must not look like a 409.
+     */
+    private static boolean isDuplicateEmail(DataIntegrityViolationException e) {
+        return e.getCause() instanceof ConstraintViolationException violation
+                && "23505".equals(violation.getSQLState())
+                && EmailAlreadyExistsException.EMAIL_KEY.equals(violation.getConstraintName());
+    }
+
     /**
      * Login: validate credentials, return access token + refresh token.
+     * Deliberately not one transaction: the user is read in a read-only one (on the
+     * replica, if configured) and the password is checked holding no connection;
+     * only the writes that follow run on the primary. Only the columns login needs
+     * are read; no User entity is loaded. Unknown emails, disabled accounts and wrong
+     * passwords all pay for one BCrypt match and fail the same way, so response time
+     * says nothing about which it was.
      */
-    @Transactional
     public AuthResult login(LoginRequest request) {
-        User user = userRepository.findByEmail(request.email())
-                .orElseThrow(InvalidCredentialsException::new);
+        Optional<LoginCredentials> found = findForLogin(request.email());
+        if (found.isEmpty()) {
+            passwordHashingService.matchDummy(request.password());
+            throw new InvalidCredentialsException();
+        }
 
-        if (!passwordEncoder.matches(request.password(), user.getPasswordHash())) {
+        // Match before the enabled check: every rejection costs one BCrypt match
+        LoginCredentials user = found.get();
+        if (!passwordHashingService.matches(request.password(), user.getPasswordHash()) || !user.isEnabled()) {
             throw new InvalidCredentialsException();
         }
 
-        String accessToken = jwtService.generateAccessToken(user);
-        String refreshToken = tokenService.createRefreshToken(user);
+        // Move the stored hash to the current algorithm and cost while we have the raw password
+        if (passwordHashingService.needsRehash(user.getPasswordHash())) {
+            userRepository.updatePasswordHash(user.getId(), passwordHashingService.encode(request.password()));
+        }
+
+        String accessToken = jwtService.generateAccessToken(user.getId(), user.getEmail());
+        String refreshToken = tokenService.createRefreshToken(user.getId());
 
         return new AuthResult(
                 new AuthResponse(accessToken, user.getEmail(), user.getFirstName()),
@@ -72,23 +107,23 @@ public class AuthService {
         );
     }
 
+    private Optional<LoginCredentials> findForLogin(String email) {
+        Optional<LoginCredentials> user = userRepository.findCredentialsByEmail(email);
+        // The replica may not have a user who registered a moment ago
+        return user.isPresent() ? user : ReplicaRouting.onPrimary(() -> userRepository.findCredentialsByEmail(email));
+    }
+
     /**
-     * Refresh: validate refresh token, rotate it, issue new access token.
+     * Refresh: atomically revoke the refresh token, issue a new one and a new access token.
      */
-    @Transactional
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
     public AuthResult refresh(String rawRefreshToken) {
-        RefreshToken existing = tokenService.validateRefreshToken(rawRefreshToken)
-                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid or expired refresh token"));
-
-        User user = existing.getUser();
-
-        // Rotate: revoke old, issue new
-        String newRefreshToken = tokenService.rotateRefreshToken(rawRefreshToken);
-        String newAccessToken = jwtService.generateAccessToken(user);
+        RotationResult rotation = tokenService.rotateRefreshToken(rawRefreshToken);
+        String newAccessToken = jwtService.generateAccessToken(rotation.userId(), rotation.email());
 
         return new AuthResult(
-                new AuthResponse(newAccessToken, user.getEmail(), user.getFirstName()),
-                newRefreshToken
+                new AuthResponse(newAccessToken, rotation.email(), rotation.firstName()),
+                rotation.refreshToken()
         );
     }
 
@@ -0,0 +1,144 @@
+package com.springauth.service;
+
+import com.springauth.service.JwtKeyRing.SigningKey;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Writes HMAC-signed access tokens directly, without the generic JWT builder.
+ * The header and claims always have the same shape, so the JSON is assembled by
+ * hand, and the encoded header and an initialised Mac are kept per key. Each call
+ * signs with a clone of that Mac, which copies the keyed state instead of running
+ * the provider lookup and key setup again; a per-thread Mac would be rebuilt on
+ * every call with virtual threads, where each request gets a new thread.
+ *
+ * The output must equal what jjwt produces; JwtService checks that at startup
+ * and does not use this class if it doesn't.
+ */
+final class HmacJwtWriter {
+
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private volatile KeyedMac prototype;
+    private volatile EncodedHeader header;
+
+    /**
+     * Returns the signed token, or null if this writer can't produce it byte-for-byte
+     * (non-HMAC key, or a value that would need JSON escaping).
+     */
+    String write(SigningKey signingKey, UUID subject, String email, long issuedAtMillis, long expiresAtSeconds) {
+        Key key = signingKey.signingKey();
+        String alg = jwsAlgorithm(key);
+        if (alg == null || email == null || needsEscaping(email)) {
+            return null;
+        }
+        EncodedHeader encodedHeader = header(signingKey, alg);
+        if (encodedHeader == null) {
+            return null;
+        }
+
+        byte[] payload = BASE64URL.encode(("{\"sub\":\"" + subject
+                + "\",\"email\":\"" + email
+                + "\",\"iat\":" + issuedAtMillis / 1000
+                + ",\"exp\":" + expiresAtSeconds
+                + ",\"iat_ms\":" + issuedAtMillis
+                + "}").getBytes(StandardCharsets.UTF_8));
+
+        Mac mac = mac(key);
+        mac.update(encodedHeader.bytes());
+        mac.update(payload);
+        byte[] signature = BASE64URL.encode(mac.doFinal());
+
+        byte[] headerBytes = encodedHeader.bytes();
+        byte[] token = new byte[headerBytes.length + payload.length + 1 + signature.length];
+        System.arraycopy(headerBytes, 0, token, 0, headerBytes.length);
+        System.arraycopy(payload, 0, token, headerBytes.length, payload.length);
+        token[headerBytes.length + payload.length] = '.';
+        System.arraycopy(signature, 0, token, headerBytes.length + payload.length + 1, signature.length);
+        // Base64url and '.' are ASCII, so this is a plain copy into a compact string
+        return new String(token, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Base64url of {"kid":...,"alg":...} followed by '.', built once per signing key.
+     */
+    private EncodedHeader header(SigningKey signingKey, String alg) {
+        EncodedHeader current = header;
+        if (current != null && current.key() == signingKey) {
+            return current;
+        }
+        if (needsEscaping(signingKey.kid())) {
+            return null;
+        }
+        byte[] json = ("{\"kid\":\"" + signingKey.kid() + "\",\"alg\":\"" + alg + "\"}").getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = BASE64URL.encode(json);
+        byte[] withDot = new byte[encoded.length + 1];
+        System.arraycopy(encoded, 0, withDot, 0, encoded.length);
+        withDot[encoded.length] = '.';
+        EncodedHeader next = new EncodedHeader(signingKey, withDot);
+        header = next;
+        return next;
+    }
+
+    /**
+     * A Mac ready to sign with this key. The prototype is never used itself, only
+     * cloned, so threads can share it; a provider without clone support gets a fresh Mac per call.
+     */
+    private Mac mac(Key key) {
+        KeyedMac current = prototype;
+        if (current == null || current.key() != key) {
+            current = new KeyedMac(key, newMac(key));
+            prototype = current;
+        }
+        try {
+            return (Mac) current.mac().clone();
+        } catch (CloneNotSupportedException e) {
+            return newMac(key);
+        }
+    }
+
+    private static Mac newMac(Key key) {
+        try {
+            Mac mac = Mac.getInstance(key.getAlgorithm());
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise " + key.getAlgorithm(), e);
+        }
+    }
+
+    /**
+     * The JWS "alg" jjwt picks for this key in signWith(key), or null if it isn't an HMAC key.
+     */
+    private static String jwsAlgorithm(Key key) {
+        return switch (key.getAlgorithm()) {
+            case "HmacSHA256" -> "HS256";
+            case "HmacSHA384" -> "HS384";
+            case "HmacSHA512" -> "HS512";
+            default -> null;
+        };
+    }
+
+    /**
+     * Characters the JSON serializer would escape. Anything else (including non-ASCII)
+     * is written as plain UTF-8 by both.
+     */
+    private static boolean needsEscaping(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c == '"' || c == '\\' || Character.isSurrogate(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record EncodedHeader(SigningKey key, byte[] bytes) {}
+
+    private record KeyedMac(Key key, Mac mac) {}
+}
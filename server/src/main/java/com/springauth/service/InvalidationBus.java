@@ -0,0 +1,266 @@
+package com.springauth.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cross-node cache invalidation over Postgres LISTEN/NOTIFY. Token revocations
+ * and account changes are sent as a NOTIFY in the transaction that made them, so other nodes hear about a change only once it has committed,
+ * and never about one that rolled back. Each node applies what it hears to its
+ * token epochs and principal cache.
+ *
+ * The listener keeps its own connection to the primary, outside the pool but with
+ * the pool's driver settings (SSL and so on). A socket timeout just above the
+ * keepalive makes a silently dropped connection fail instead of blocking forever.
+ * Whenever it (re)connects it runs a full resync, since notifications sent while it
+ * was away are lost. Until it is back, the epoch poll and cache TTL bound staleness.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.invalidation-bus.enabled", havingValue = "true")
+public class InvalidationBus {
+
+    private static final String TOKENS_REVOKED = "tokens_revoked";
+    private static final String USER_CHANGED = "user_changed";
+
+    /** Slack on top of the keepalive before a silent connection counts as dead. */
+    private static final int SOCKET_TIMEOUT_SLACK_SECONDS = 5;
+
+    /** Tells this node's own notifications apart; it has applied them already. */
+    private final String nodeId = UUID.randomUUID().toString();
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final DataSourceProperties dataSourceProperties;
+    private final TokenEpochService tokenEpochService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final String channel;
+    private final long keepaliveMillis;
+    private final long reconnectBackoffMillis;
+    private final long maxReconnectBackoffMillis;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final AtomicLong resyncs = new AtomicLong();
+    private volatile boolean connected;
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread listener;
+
+    public InvalidationBus(
+            JdbcTemplate jdbcTemplate,
+            DataSource dataSource,
+            DataSourceProperties dataSourceProperties,
+            TokenEpochService tokenEpochService,
+            UserPrincipalCache userPrincipalCache,
+            @Value("${app.invalidation-bus.channel}") String channel,
+            @Value("${app.invalidation-bus.keepalive}") long keepaliveMillis,
+            @Value("${app.invalidation-bus.reconnect-backoff}") long reconnectBackoffMillis,
+            @Value("${app.invalidation-bus.max-reconnect-backoff}") long maxReconnectBackoffMillis
+    ) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("app.invalidation-bus.channel must be a plain lower-case identifier: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.dataSourceProperties = dataSourceProperties;
+        this.tokenEpochService = tokenEpochService;
+        this.userPrincipalCache = userPrincipalCache;
+        this.channel = channel;
+        this.keepaliveMillis = keepaliveMillis;
+        this.reconnectBackoffMillis = reconnectBackoffMillis;
+        this.maxReconnectBackoffMillis = maxReconnectBackoffMillis;
+    }
+
+    // --- Publishing: in the transaction of the change, delivered by Postgres at commit ---
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onTokensRevoked(TokensRevokedEvent event) {
+        publish(TOKENS_REVOKED, event.userId(), String.valueOf(event.validAfter().toEpochMilli()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        publish(USER_CHANGED, event.userId(), "");
+    }
+
+    private void publish(String type, UUID userId, String argument) {
+        // origin|type|userId|argument; the payload limit (8000 bytes) is far away
+        String payload = nodeId + "|" + type + "|" + userId + "|" + argument;
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, channel, payload);
+        published.increment();
+    }
+
+    // --- Listening ---
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listener = Thread.ofPlatform().daemon().name("invalidation-bus").start(this::listen);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        listener.interrupt();
+        closeQuietly(connection);
+    }
+
+    private void listen() {
+        long backoff = reconnectBackoffMillis;
+        while (running) {
+            try (Connection conn = DriverManager.getConnection(dataSourceProperties.determineUrl(), connectionProperties())) {
+                connection = conn;
+                try (Statement statement = conn.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                // Listening first, then resync: nothing can fall in between
+                resync();
+                connected = true;
+                backoff = reconnectBackoffMillis;
+                log.info("Invalidation bus listening on channel {}", channel);
+
+                receive(conn);
+            } catch (SQLException | RuntimeException e) {
+                if (running) {
+                    log.warn("Invalidation bus connection lost, reconnecting in {} ms", backoff, e);
+                }
+            } finally {
+                connected = false;
+                connection = null;
+            }
+
+            if (running && !sleep(backoff)) {
+                return;
+            }
+            backoff = Math.min(backoff * 2, maxReconnectBackoffMillis);
+        }
+    }
+
+    /**
+     * The primary pool's driver properties plus credentials and timeouts. With a
+     * replica configured, the primary pool sits behind the routing proxy.
+     */
+    private Properties connectionProperties() throws SQLException {
+        Properties properties = new Properties();
+        if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            properties.putAll(dataSource.unwrap(HikariDataSource.class).getDataSourceProperties());
+        }
+        properties.setProperty("user", dataSourceProperties.determineUsername());
+        String password = dataSourceProperties.determinePassword();
+        if (password != null) {
+            properties.setProperty("password", password);
+        }
+        properties.setProperty("tcpKeepAlive", "true");
+        properties.setProperty("socketTimeout",
+                String.valueOf(Math.ceilDiv(keepaliveMillis, 1000) + SOCKET_TIMEOUT_SLACK_SECONDS));
+        properties.setProperty("ApplicationName", "auth-invalidation-bus");
+        return properties;
+    }
+
+    /**
+     * Blocks for notifications until the connection fails or the bus stops.
+     */
+    private void receive(Connection conn) throws SQLException {
+        PGConnection pgConnection = conn.unwrap(PGConnection.class);
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications((int) keepaliveMillis);
+            if (notifications == null || notifications.length == 0) {
+                // Nothing for a while: make sure the connection is still alive
+                try (Statement statement = conn.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+                continue;
+            }
+            for (PGNotification notification : notifications) {
+                apply(notification.getParameter());
+            }
+        }
+    }
+
+    private void apply(String payload) {
+        String[] parts = payload.split("\\|", 4);
+        if (parts.length != 4) {
+            log.warn("Ignoring malformed invalidation message: {}", payload);
+            return;
+        }
+        if (parts[0].equals(nodeId)) {
+            return;
+        }
+        received.increment();
+
+        UUID userId = UUID.fromString(parts[2]);
+        switch (parts[1]) {
+            case TOKENS_REVOKED -> tokenEpochService.apply(userId, Instant.ofEpochMilli(Long.parseLong(parts[3])));
+            case USER_CHANGED -> userPrincipalCache.invalidate(userId);
+            default -> log.warn("Ignoring unknown invalidation message type: {}", parts[1]);
+        }
+    }
+
+    /**
+     * Full fallback for whatever was missed while not listening.
+     */
+    private void resync() {
+        userPrincipalCache.invalidateAll();
+        tokenEpochService.resync();
+        resyncs.incrementAndGet();
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // Shutting down
+        }
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public long publishedCount() {
+        return published.sum();
+    }
+
+    public long receivedCount() {
+        return received.sum();
+    }
+
+    public long resyncCount() {
+        return resyncs.get();
+    }
+}
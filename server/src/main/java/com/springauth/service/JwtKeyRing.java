@@ -0,0 +1,330 @@
+package com.springauth.service;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PrivateJwk;
+import io.jsonwebtoken.security.PublicJwk;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Holds the signing key plus any retiring keys, indexed by "kid".
+ * Keys and the parser are built once and swapped atomically on rotation,
+ * so the request path never decodes secrets or builds parsers.
+ *
+ * With app.jwt.algorithm HS256 keys are shared secrets. With ES256 or EdDSA
+ * they are key pairs: only this server holds the private keys, and the public
+ * keys are published as a JWK set for other services to verify tokens locally.
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    private static final String ACTIVE_ENTRY = "active";
+
+    private final Algorithm algorithm;
+    private final String defaultKeyId;
+    private final String defaultSecret;
+    private final Path keysFile;
+    private final long accessTokenExpiry;
+
+    private final JwtParser parser;
+
+    private volatile Snapshot snapshot;
+    private volatile long keysFileModified = -1;
+
+    public JwtKeyRing(
+            @Value("${app.jwt.algorithm}") Algorithm algorithm,
+            @Value("${app.jwt.key-id}") String defaultKeyId,
+            @Value("${app.jwt.secret}") String defaultSecret,
+            @Value("${app.jwt.keys-file:}") String keysFile,
+            @Value("${app.jwt.access-token-expiry}") long accessTokenExpiry
+    ) {
+        this.algorithm = algorithm;
+        this.defaultKeyId = defaultKeyId;
+        this.defaultSecret = defaultSecret;
+        this.keysFile = keysFile.isBlank() ? null : Path.of(keysFile);
+        this.accessTokenExpiry = accessTokenExpiry;
+
+        if (this.keysFile != null && Files.exists(this.keysFile)) {
+            // Fail fast: a node must not start with keys other than the configured ones
+            try {
+                KeysFile loaded = readKeysFile();
+                this.snapshot = new Snapshot(loaded.active(), Map.copyOf(loaded.keys()), Map.of());
+                this.keysFileModified = loaded.modified();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read JWT keys file " + this.keysFile, e);
+            }
+        } else {
+            SigningKey initial = algorithm == Algorithm.HS256
+                    ? hmacKey(defaultKeyId, defaultSecret)
+                    : generatedKey();
+            this.snapshot = new Snapshot(initial, Map.of(initial.kid(), initial), Map.of());
+        }
+
+        // One thread-safe parser for all keys: the kid header picks the key
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    public SigningKey activeKey() {
+        return snapshot.active();
+    }
+
+    public JwtParser parser() {
+        return parser;
+    }
+
+    public Algorithm algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Public keys of every key that may still verify a live token, as JWKs.
+     * Empty for HS256: shared secrets are never published.
+     */
+    public List<Map<String, Object>> publicJwks() {
+        Snapshot current = snapshot;
+        Instant now = Instant.now();
+        List<Map<String, Object>> jwks = new ArrayList<>();
+
+        current.keys().values().stream()
+                .filter(key -> key.publicJwk() != null)
+                .forEach(key -> jwks.add(key.publicJwk()));
+        current.retired().values().stream()
+                .filter(retired -> now.isBefore(retired.until()) && retired.key().publicJwk() != null)
+                .forEach(retired -> jwks.add(retired.key().publicJwk()));
+
+        return jwks;
+    }
+
+    /**
+     * Makes a new HMAC key the signing key. The previous one keeps verifying
+     * until every token it signed has expired.
+     */
+    public synchronized void rotate(String kid, String base64Secret) {
+        if (algorithm != Algorithm.HS256) {
+            throw new IllegalStateException("rotate(kid, secret) only applies to HS256; use the keys file");
+        }
+        Map<String, SigningKey> keys = new HashMap<>(snapshot.keys());
+        SigningKey next = hmacKey(kid, base64Secret);
+        keys.put(kid, next);
+        install(next, keys);
+    }
+
+    /**
+     * Re-reads the keys file when it has changed. Format (Java properties):
+     * <pre>
+     * active=k2
+     * k2=...   # HS256: base64 secret; ES256/EdDSA: path to a private JWK (JSON) file
+     * k1=...   # retiring, verify only (ES256/EdDSA: a public JWK is enough)
+     * </pre>
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.keys-reload-interval}")
+    public synchronized void reload() {
+        if (keysFile == null || !Files.exists(keysFile)) {
+            pruneRetired();
+            return;
+        }
+
+        try {
+            long modified = Files.getLastModifiedTime(keysFile).toMillis();
+            if (modified == keysFileModified) {
+                pruneRetired();
+                return;
+            }
+
+            KeysFile loaded = readKeysFile();
+            install(loaded.active(), loaded.keys());
+            keysFileModified = loaded.modified();
+            log.info("Loaded {} JWT key(s) from {}, active kid '{}'",
+                    loaded.keys().size(), keysFile, loaded.active().kid());
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to load JWT keys file {}, keeping current keys", keysFile, e);
+        }
+    }
+
+    private KeysFile readKeysFile() throws IOException {
+        long modified = Files.getLastModifiedTime(keysFile).toMillis();
+        Properties entries = new Properties();
+        try (Reader reader = Files.newBufferedReader(keysFile)) {
+            entries.load(reader);
+        }
+
+        String activeKid = entries.getProperty(ACTIVE_ENTRY, defaultKeyId);
+        Map<String, SigningKey> keys = new HashMap<>();
+        for (String kid : entries.stringPropertyNames()) {
+            if (!kid.equals(ACTIVE_ENTRY)) {
+                keys.put(kid, loadKey(kid, entries.getProperty(kid).trim()));
+            }
+        }
+        if (algorithm == Algorithm.HS256 && activeKid.equals(defaultKeyId)) {
+            keys.computeIfAbsent(activeKid, kid -> hmacKey(kid, defaultSecret));
+        }
+
+        SigningKey active = keys.get(activeKid);
+        if (active == null || active.signingKey() == null) {
+            throw new IllegalArgumentException("JWT keys file " + keysFile + " names active key '"
+                    + activeKid + "' but does not define a signing key for it");
+        }
+        return new KeysFile(active, keys, modified);
+    }
+
+    private Key verificationKey(String kid) {
+        Snapshot current = snapshot;
+        if (kid == null) {
+            // Tokens minted before key ids were introduced
+            return current.active().verificationKey();
+        }
+        SigningKey key = current.keys().get(kid);
+        if (key != null) {
+            return key.verificationKey();
+        }
+        RetiredKey retired = current.retired().get(kid);
+        if (retired != null && Instant.now().isBefore(retired.until())) {
+            return retired.key().verificationKey();
+        }
+        return null;
+    }
+
+    private void install(SigningKey active, Map<String, SigningKey> keys) {
+        Snapshot previous = snapshot;
+        Instant now = Instant.now();
+        Map<String, RetiredKey> retired = new HashMap<>();
+
+        previous.retired().forEach((kid, key) -> {
+            if (!keys.containsKey(kid) && now.isBefore(key.until())) {
+                retired.put(kid, key);
+            }
+        });
+        // Keys dropped from the ring still verify the tokens they already signed
+        previous.keys().forEach((kid, key) -> {
+            if (!keys.containsKey(kid)) {
+                retired.put(kid, new RetiredKey(key, now.plusMillis(accessTokenExpiry)));
+            }
+        });
+
+        snapshot = new Snapshot(active, Map.copyOf(keys), Map.copyOf(retired));
+    }
+
+    private void pruneRetired() {
+        Snapshot current = snapshot;
+        Instant now = Instant.now();
+        if (current.retired().values().stream().anyMatch(key -> !now.isBefore(key.until()))) {
+            Map<String, RetiredKey> retired = new HashMap<>(current.retired());
+            retired.values().removeIf(key -> !now.isBefore(key.until()));
+            snapshot = new Snapshot(current.active(), current.keys(), Map.copyOf(retired));
+        }
+    }
+
+    private SigningKey loadKey(String kid, String value) throws IOException {
+        if (algorithm == Algorithm.HS256) {
+            return hmacKey(kid, value);
+        }
+
+        Jwk<?> jwk = Jwks.parser().build().parse(Files.readString(Path.of(value)));
+        if (jwk instanceof PrivateJwk<?, ?, ?> privateJwk) {
+            PublicKey publicKey = privateJwk.toPublicJwk().toKey();
+            return asymmetricKey(kid, privateJwk.toKey(), publicKey);
+        }
+        if (jwk instanceof PublicJwk<?> publicJwk) {
+            return asymmetricKey(kid, null, publicJwk.toKey());
+        }
+        throw new IllegalArgumentException("Key '" + kid + "' is not an " + algorithm + " JWK");
+    }
+
+    private SigningKey generatedKey() {
+        // Ed25519 explicitly: it is what EdDSA verifiers support most widely
+        KeyPair keyPair = algorithm == Algorithm.ES256
+                ? Jwts.SIG.ES256.keyPair().build()
+                : Jwks.CRV.Ed25519.keyPair().build();
+        String kid = Jwks.builder().key(keyPair.getPublic()).build().thumbprint().toString();
+
+        log.warn("No JWT keys file configured: generated an ephemeral {} key '{}'. "
+                + "Tokens won't survive a restart or verify on other nodes.", algorithm, kid);
+        return asymmetricKey(kid, keyPair.getPrivate(), keyPair.getPublic());
+    }
+
+    private static SigningKey hmacKey(String kid, String base64Secret) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret.trim()));
+        return new SigningKey(kid, key, key, null);
+    }
+
+    /**
+     * The public JWK is built by jjwt, so crv and coordinates are right for the actual key.
+     * Keys on a curve the configured algorithm doesn't sign with are rejected.
+     */
+    private SigningKey asymmetricKey(String kid, Key privateKey, PublicKey publicKey) {
+        PublicJwk<?> jwk = Jwks.builder().key(publicKey)
+                .id(kid)
+                .publicKeyUse("sig")
+                .algorithm(algorithm.name())
+                .build();
+
+        Object curve = jwk.get("crv");
+        if (!algorithm.curves().contains(String.valueOf(curve))) {
+            throw new IllegalArgumentException("Key '" + kid + "' is on curve " + curve
+                    + ", but " + algorithm + " needs " + String.join(" or ", algorithm.curves()));
+        }
+        return new SigningKey(kid, privateKey, publicKey, Map.copyOf(jwk));
+    }
+
+    public enum Algorithm {
+        HS256(List.of()),
+        ES256(List.of("P-256")),
+        EdDSA(List.of("Ed25519", "Ed448"));
+
+        private final List<String> curves;
+
+        Algorithm(List<String> curves) {
+            this.curves = curves;
+        }
+
+        /**
+         * JWK "crv" values of the keys this algorithm signs with.
+         */
+        public List<String> curves() {
+            return curves;
+        }
+    }
+
+    /**
+     * A key in the ring. {@code signingKey} is null for verify-only keys;
+     * {@code publicJwk} is null for shared HMAC secrets.
+     */
+    public record SigningKey(String kid, Key signingKey, Key verificationKey, Map<String, Object> publicJwk) {}
+
+    private record RetiredKey(SigningKey key, Instant until) {}
+
+    private record KeysFile(SigningKey active, Map<String, SigningKey> keys, long modified) {}
+
+    private record Snapshot(SigningKey active, Map<String, SigningKey> keys, Map<String, RetiredKey> retired) {}
+}
@@ -1,35 +1,163 @@
 package com.springauth.service;
 
+import com.springauth.dto.UserPrincipal;
 import com.springauth.entity.User;
+import com.springauth.service.JwtKeyRing.SigningKey;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Service
 public class JwtService {
 
-    @Value("${app.jwt.secret}")
-    private String secret;
+    private static final String EMAIL_CLAIM = "email";
+    private static final String ROLES_CLAIM = "roles";
+    /** Issue time in ms: "iat" has one-second resolution, too coarse for token epochs. */
+    private static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
 
-    @Value("${app.jwt.access-token-expiry}")
-    private long accessTokenExpiry;
+    private final JwtKeyRing keyRing;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final Timer signTimer;
+    private final Timer verifyValidTimer;
+    private final Timer verifyInvalidTimer;
+    private final long accessTokenExpiry;
+    private final HmacJwtWriter directWriter;
+
+    public JwtService(
+            JwtKeyRing keyRing,
+            VerifiedTokenCache verifiedTokenCache,
+            MeterRegistry meterRegistry,
+            @Value("${app.jwt.access-token-expiry}") long accessTokenExpiry,
+            @Value("${app.jwt.direct-serialization}") boolean directSerialization
+    ) {
+        this.keyRing = keyRing;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.accessTokenExpiry = accessTokenExpiry;
+        this.directWriter = directSerialization ? checkedDirectWriter(keyRing.activeKey()) : null;
+        this.signTimer = Timer.builder("auth.jwt.sign")
+                .description("Access token signing")
+                .register(meterRegistry);
+        this.verifyValidTimer = verifyTimer(meterRegistry, "valid");
+        this.verifyInvalidTimer = verifyTimer(meterRegistry, "invalid");
+    }
 
     public String generateAccessToken(User user) {
+        return generateAccessToken(user.getId(), user.getEmail());
+    }
+
+    public String generateAccessToken(UUID userId, String email) {
+        long start = System.nanoTime();
+        SigningKey signingKey = keyRing.activeKey();
+        long now = System.currentTimeMillis();
+
+        String token = directWriter == null
+                ? null
+                : directWriter.write(signingKey, userId, email, now, (now + accessTokenExpiry) / 1000);
+        if (token == null) {
+            token = builderToken(signingKey, userId, email, now, now + accessTokenExpiry);
+        }
+
+        signTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return token;
+    }
+
+    private static String builderToken(SigningKey signingKey, UUID userId, String email, long issuedAtMillis, long expiresAtMillis) {
         return Jwts.builder()
-                .subject(user.getId().toString())
-                .claim("email", user.getEmail())
-                .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + accessTokenExpiry))
-                .signWith(getSigningKey())
+                .header().keyId(signingKey.kid()).and()
+                .subject(userId.toString())
+                .claim(EMAIL_CLAIM, email)
+                .issuedAt(new Date(issuedAtMillis))
+                .expiration(new Date(expiresAtMillis))
+                .claim(ISSUED_AT_MILLIS_CLAIM, issuedAtMillis)
+                .signWith(signingKey.signingKey())
                 .compact();
     }
 
+    /**
+     * The direct writer is only used if it produces exactly the builder's bytes for
+     * this key type, so tokens don't change shape across versions or nodes.
+     */
+    private static HmacJwtWriter checkedDirectWriter(SigningKey signingKey) {
+        HmacJwtWriter writer = new HmacJwtWriter();
+        UUID userId = UUID.randomUUID();
+        long issuedAt = System.currentTimeMillis();
+        long expiresAt = issuedAt + 900_000;
+
+        String direct = writer.write(signingKey, userId, "check@example.com", issuedAt, expiresAt / 1000);
+        if (direct == null) {
+            // Asymmetric keys: signing dominates, the builder stays
+            return null;
+        }
+        String expected = builderToken(signingKey, userId, "check@example.com", issuedAt, expiresAt);
+        if (!direct.equals(expected)) {
+            log.warn("Direct JWT serialization differs from the JWT builder; using the builder");
+            return null;
+        }
+        return writer;
+    }
+
+    /**
+     * Verifies the token once and returns its claims, or empty if invalid.
+     * Tokens seen before are answered from the verified-token cache.
+     */
+    public Optional<Claims> parseToken(String token) {
+        return verifiedTokenCache.getOrVerify(token, this::verify);
+    }
+
+    /**
+     * Full signature check and claims parse; only runs on verified-cache misses.
+     */
+    private Optional<Claims> verify(String token) {
+        long start = System.nanoTime();
+        try {
+            Claims claims = extractAllClaims(token);
+            verifyValidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.of(claims);
+        } catch (Exception e) {
+            verifyInvalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Builds a principal from already-verified claims, without touching the DB.
+     */
+    public UserPrincipal toPrincipal(Claims claims) {
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        List<GrantedAuthority> authorities = roles == null
+                ? List.of()
+                : roles.stream().<GrantedAuthority>map(role -> new SimpleGrantedAuthority(role.toString())).toList();
+
+        return new UserPrincipal(
+                UUID.fromString(claims.getSubject()),
+                claims.get(EMAIL_CLAIM, String.class),
+                true,
+                authorities
+        );
+    }
+
+    /**
+     * When the token was issued, in ms. Tokens from before the "iat_ms" claim only
+     * have "iat"; its second is taken as is, so they count as issued a little early.
+     */
+    public static long issuedAtMillis(Claims claims) {
+        Long issuedAtMillis = claims.get(ISSUED_AT_MILLIS_CLAIM, Long.class);
+        return issuedAtMillis != null ? issuedAtMillis : claims.getIssuedAt().getTime();
+    }
+
     public String extractUserId(String token) {
         return extractAllClaims(token).getSubject();
     }
@@ -44,15 +172,15 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return keyRing.parser()
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auth.jwt.verify")
+                .description("Access token signature check and claims parse")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 }
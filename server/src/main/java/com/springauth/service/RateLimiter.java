@@ -0,0 +1,70 @@
+package com.springauth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, implemented as GCRA: each key holds one AtomicLong,
+ * its "theoretical arrival time", updated with a CAS. A request is allowed if the
+ * bucket hasn't run ahead of real time by more than the burst. Keys that go idle
+ * are evicted, and the number of keys is capped, so memory stays bounded.
+ */
+public class RateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    /**
+     * @param ratePerMinute sustained requests per minute
+     * @param burst         requests allowed back to back from a full bucket
+     */
+    public RateLimiter(int ratePerMinute, int burst, long maxKeys) {
+        this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / ratePerMinute;
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                // once idle this long, a bucket is full again and needs no state
+                .expireAfterAccess(Duration.ofNanos(emissionIntervalNanos + burstToleranceNanos))
+                .build();
+    }
+
+    /**
+     * Takes one token for the key.
+     *
+     * @return 0 if allowed, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(String key) {
+        AtomicLong arrival = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = System.nanoTime();
+            long tat = arrival.get();
+            long start = tat == Long.MIN_VALUE || tat - now < 0 ? now : tat;
+            long waitNanos = start - now - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (arrival.compareAndSet(tat, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire} for a request that did not go ahead.
+     */
+    public void release(String key) {
+        AtomicLong arrival = buckets.getIfPresent(key);
+        if (arrival != null) {
+            arrival.addAndGet(-emissionIntervalNanos);
+        }
+    }
+
+    public long size() {
+        return buckets.estimatedSize();
+    }
+}
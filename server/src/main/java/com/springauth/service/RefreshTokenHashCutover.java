@@ -0,0 +1,122 @@
+package com.springauth.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Online move of refresh_tokens from the 64-char hex "token_hash" column to the
+ * 32-byte "token_digest" bytea column. Existing rows are backfilled in small
+ * batches while the app keeps serving, one node at a time (advisory lock), and
+ * rows not yet backfilled are still found via TokenService's legacy lookup.
+ * Until the cutover is switched off, new rows get both columns, so nodes still
+ * on the old version find tokens minted by new ones during a rolling deploy.
+ * Once this logs completion and every node runs this version, turn off
+ * app.refresh-token.legacy-hex-lookup and drop the token_hash column.
+ */
+@Slf4j
+@Component
+public class RefreshTokenHashCutover {
+
+    private static final long BACKFILL_LOCK_KEY = 0x6261636b66696c6cL; // "backfill"
+
+    private static final String BACKFILL_BATCH = """
+            UPDATE refresh_tokens
+            SET token_digest = decode(token_hash, 'hex')
+            WHERE id IN (
+                SELECT id FROM refresh_tokens
+                WHERE token_digest IS NULL AND token_hash IS NOT NULL
+                LIMIT ?
+            )
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    private volatile boolean legacyColumnPresent;
+    private volatile boolean backfillDone;
+
+    public RefreshTokenHashCutover(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.refresh-token.legacy-hex-lookup}") boolean enabled,
+            @Value("${app.refresh-token.backfill-batch-size}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void detectLegacyColumn() {
+        Integer legacyColumns = jdbcTemplate.queryForObject("""
+                SELECT count(*) FROM information_schema.columns
+                WHERE table_name = 'refresh_tokens' AND column_name = 'token_hash'
+                """, Integer.class);
+
+        legacyColumnPresent = legacyColumns != null && legacyColumns > 0;
+        backfillDone = !legacyColumnPresent;
+    }
+
+    /**
+     * True while rows written in the hex format may still exist, or nodes that only
+     * read the hex column may still be running.
+     */
+    public boolean isLegacyLookupActive() {
+        return enabled && legacyColumnPresent;
+    }
+
+    @Scheduled(fixedDelayString = "${app.refresh-token.backfill-interval}")
+    public void backfillBatch() {
+        if (!enabled || backfillDone) {
+            return;
+        }
+
+        // One connection for lock, batch and unlock: advisory locks are per session
+        Integer updated = jdbcTemplate.execute((Connection connection) -> {
+            if (!tryLock(connection)) {
+                return null;
+            }
+            try (PreparedStatement backfill = connection.prepareStatement(BACKFILL_BATCH)) {
+                backfill.setInt(1, batchSize);
+                return backfill.executeUpdate();
+            } finally {
+                unlock(connection);
+            }
+        });
+        if (updated == null) {
+            // Another node is backfilling
+            return;
+        }
+
+        if (updated < batchSize) {
+            backfillDone = true;
+            log.info("refresh_tokens digest backfill complete; "
+                    + "set app.refresh-token.legacy-hex-lookup=false and drop column token_hash");
+        }
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            lock.setLong(1, BACKFILL_LOCK_KEY);
+            try (ResultSet rs = lock.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            unlock.setLong(1, BACKFILL_LOCK_KEY);
+            unlock.execute();
+        }
+    }
+}
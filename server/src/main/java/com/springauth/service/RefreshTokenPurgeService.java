@@ -0,0 +1,269 @@
+package com.springauth.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Background purge of dead refresh tokens. Every login and refresh inserts a row,
+ * so without this the table grows forever.
+ *
+ * Only expired rows are removed. Revoked rows are kept until they expire, because
+ * reuse detection needs them. Deletes run in small batches, each committed on its
+ * own, so no long lock is ever held. A Postgres advisory lock makes sure only one
+ * node purges at a time. Sessions left without any tokens are deleted afterwards.
+ *
+ * With app.refresh-token.purge.partitioned (after running
+ * db/partitioning/refresh_tokens_partitioned.sql), whole daily partitions are
+ * detached and dropped instead, and upcoming ones are created ahead of time.
+ */
+@Slf4j
+@Service
+public class RefreshTokenPurgeService {
+
+    private static final long PURGE_LOCK_KEY = 0x7265667265736800L; // "refresh\0"
+    private static final String PARTITION_PREFIX = "refresh_tokens_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String DELETE_BATCH = """
+            DELETE FROM refresh_tokens
+            WHERE id IN (
+                SELECT id FROM refresh_tokens
+                WHERE expires_at < now() - make_interval(secs => ?)
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            """;
+
+    // Sessions whose tokens have all been purged; the grace keeps brand-new ones safe
+    private static final String DELETE_SESSION_BATCH = """
+            DELETE FROM auth_sessions
+            WHERE id IN (
+                SELECT s.id FROM auth_sessions s
+                WHERE s.created_at < now() - make_interval(secs => ?)
+                  AND NOT EXISTS (SELECT 1 FROM refresh_tokens t WHERE t.session_id = s.id)
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long batchPauseMillis;
+    private final long graceSeconds;
+    private final boolean partitioned;
+    private final long refreshTokenExpiry;
+
+    private final LongAdder deletedRows = new LongAdder();
+    private final LongAdder droppedPartitions = new LongAdder();
+    private final LongAdder deletedSessions = new LongAdder();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder skippedRuns = new LongAdder();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+
+    public RefreshTokenPurgeService(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.refresh-token.purge.batch-size}") int batchSize,
+            @Value("${app.refresh-token.purge.max-batches-per-run}") int maxBatchesPerRun,
+            @Value("${app.refresh-token.purge.batch-pause}") long batchPauseMillis,
+            @Value("${app.refresh-token.purge.grace}") long graceMillis,
+            @Value("${app.refresh-token.purge.partitioned}") boolean partitioned,
+            @Value("${app.jwt.refresh-token-expiry}") long refreshTokenExpiry
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.batchPauseMillis = batchPauseMillis;
+        this.graceSeconds = graceMillis / 1000;
+        this.partitioned = partitioned;
+        this.refreshTokenExpiry = refreshTokenExpiry;
+    }
+
+    @Scheduled(fixedDelayString = "${app.refresh-token.purge.interval}",
+            initialDelayString = "${app.refresh-token.purge.initial-delay}")
+    public void purge() {
+        long start = System.nanoTime();
+
+        // One connection for the whole run: advisory locks are per session
+        Boolean ran = jdbcTemplate.execute((Connection connection) -> {
+            if (!tryLock(connection)) {
+                return false;
+            }
+            try {
+                if (partitioned) {
+                    maintainPartitions(connection);
+                } else {
+                    deleteInBatches(connection);
+                }
+                deleteEmptySessions(connection);
+                return true;
+            } finally {
+                unlock(connection);
+            }
+        });
+
+        if (Boolean.TRUE.equals(ran)) {
+            runs.increment();
+            lastRunMillis.set((System.nanoTime() - start) / 1_000_000);
+        } else {
+            skippedRuns.increment();
+        }
+    }
+
+    public long deletedRowCount() {
+        return deletedRows.sum();
+    }
+
+    public long droppedPartitionCount() {
+        return droppedPartitions.sum();
+    }
+
+    public long deletedSessionCount() {
+        return deletedSessions.sum();
+    }
+
+    public long runCount() {
+        return runs.sum();
+    }
+
+    /**
+     * Runs skipped because another node held the purge lock.
+     */
+    public long skippedRunCount() {
+        return skippedRuns.sum();
+    }
+
+    public long lastRunMillis() {
+        return lastRunMillis.get();
+    }
+
+    private void deleteInBatches(Connection connection) throws SQLException {
+        long total = 0;
+        try (PreparedStatement delete = connection.prepareStatement(DELETE_BATCH)) {
+            delete.setLong(1, graceSeconds);
+            delete.setInt(2, batchSize);
+
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                int deleted = delete.executeUpdate();
+                total += deleted;
+                deletedRows.add(deleted);
+                if (deleted < batchSize) {
+                    break;
+                }
+                pause();
+            }
+        }
+        if (total > 0) {
+            log.info("Purged {} expired refresh tokens", total);
+        }
+    }
+
+    private void deleteEmptySessions(Connection connection) throws SQLException {
+        long total = 0;
+        try (PreparedStatement delete = connection.prepareStatement(DELETE_SESSION_BATCH)) {
+            delete.setLong(1, graceSeconds);
+            delete.setInt(2, batchSize);
+
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                int deleted = delete.executeUpdate();
+                total += deleted;
+                deletedSessions.add(deleted);
+                if (deleted < batchSize) {
+                    break;
+                }
+                pause();
+            }
+        }
+        if (total > 0) {
+            log.info("Purged {} ended sessions", total);
+        }
+    }
+
+    private void maintainPartitions(Connection connection) throws SQLException {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        long daysAhead = refreshTokenExpiry / 86_400_000L + 2;
+
+        try (Statement statement = connection.createStatement()) {
+            for (long day = 0; day <= daysAhead; day++) {
+                LocalDate from = today.plusDays(day);
+                statement.execute("CREATE TABLE IF NOT EXISTS " + partitionName(from)
+                        + " PARTITION OF refresh_tokens FOR VALUES FROM ('" + from + " 00:00+00') TO ('" + from.plusDays(1) + " 00:00+00')");
+            }
+
+            // A partition can go once its last possible expiry plus the grace period has passed
+            LocalDate cutoff = today.minusDays(graceSeconds / 86_400 + 1);
+            for (String partition : listPartitions(connection)) {
+                LocalDate day = LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+                if (day.isBefore(cutoff)) {
+                    statement.execute("ALTER TABLE refresh_tokens DETACH PARTITION " + partition + " CONCURRENTLY");
+                    statement.execute("DROP TABLE " + partition);
+                    droppedPartitions.increment();
+                    log.info("Dropped refresh token partition {}", partition);
+                }
+            }
+        }
+    }
+
+    private List<String> listPartitions(Connection connection) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("""
+                     SELECT c.relname FROM pg_inherits i
+                     JOIN pg_class c ON c.oid = i.inhrelid
+                     JOIN pg_class p ON p.oid = i.inhparent
+                     WHERE p.relname = 'refresh_tokens'
+                     """)) {
+            while (rs.next()) {
+                String name = rs.getString(1);
+                if (name.startsWith(PARTITION_PREFIX)) {
+                    partitions.add(name);
+                }
+            }
+        }
+        return partitions;
+    }
+
+    private static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            lock.setLong(1, PURGE_LOCK_KEY);
+            try (ResultSet rs = lock.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            unlock.setLong(1, PURGE_LOCK_KEY);
+            unlock.execute();
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(batchPauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
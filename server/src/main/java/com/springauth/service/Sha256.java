@@ -0,0 +1,51 @@
+package com.springauth.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 for token hashing. Each call clones a prototype digest instead of
+ * keeping one per thread: with virtual threads every request runs on a new
+ * thread, so a per-thread instance was looked up again on every call. A clone
+ * skips the provider lookup and is just a copy of the initial state.
+ */
+public final class Sha256 {
+
+    private static final MessageDigest PROTOTYPE = newInstance();
+    private static final boolean CLONEABLE = isCloneable(PROTOTYPE);
+
+    private Sha256() {
+    }
+
+    public static byte[] digest(byte[] input) {
+        return instance().digest(input);
+    }
+
+    private static MessageDigest instance() {
+        if (CLONEABLE) {
+            try {
+                return (MessageDigest) PROTOTYPE.clone();
+            } catch (CloneNotSupportedException e) {
+                // Checked at startup; not reached
+            }
+        }
+        return newInstance();
+    }
+
+    private static MessageDigest newInstance() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static boolean isCloneable(MessageDigest digest) {
+        try {
+            digest.clone();
+            return true;
+        } catch (CloneNotSupportedException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.springauth.service;
+
+import com.springauth.repository.ReplicaRouting;
+import com.springauth.repository.UserRepository;
+import com.springauth.repository.UserRepository.TokenEpoch;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user "tokens valid after" epochs, stored in users.tokens_valid_after and
+ * mirrored in memory so the JWT filter can reject revoked access tokens with one
+ * map lookup. Only epochs younger than one access-token lifetime are kept: any
+ * token issued before an older epoch has expired anyway, so the map stays small.
+ * Other nodes' changes are picked up by polling, at most one poll interval late.
+ */
+@Service
+public class TokenEpochService {
+
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long accessTokenExpiry;
+
+    /** userId -> epoch in epoch-ms (the "iat_ms" claim's resolution). */
+    private final Map<UUID, Long> epochs = new ConcurrentHashMap<>();
+    private volatile Instant lastPoll = Instant.EPOCH;
+
+    public TokenEpochService(
+            UserRepository userRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.jwt.access-token-expiry}") long accessTokenExpiry
+    ) {
+        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.accessTokenExpiry = accessTokenExpiry;
+    }
+
+    /**
+     * True if the user revoked all tokens after this token was issued.
+     */
+    public boolean isRevoked(UUID userId, long issuedAtMillis) {
+        Long epoch = epochs.get(userId);
+        return epoch != null && issuedAtMillis < epoch;
+    }
+
+    /**
+     * Invalidates every access token issued and session started for the user so far.
+     * Rounded up to the next millisecond, the resolution of the "iat_ms" claim, so
+     * only what was issued in the same millisecond as the revocation is caught with it.
+     */
+    @Transactional
+    public void revokeAll(UUID userId) {
+        Instant validAfter = Instant.now().truncatedTo(ChronoUnit.MILLIS).plusMillis(1);
+        userRepository.updateTokensValidAfter(userId, validAfter);
+        eventPublisher.publishEvent(new TokensRevokedEvent(userId, validAfter));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTokensRevoked(TokensRevokedEvent event) {
+        apply(event.userId(), event.validAfter());
+    }
+
+    public int size() {
+        return epochs.size();
+    }
+
+    @PostConstruct
+    public void load() {
+        resync();
+    }
+
+    /**
+     * Picks up epochs written by other nodes and drops ones that no longer matter.
+     */
+    @Scheduled(fixedDelayString = "${app.token-epoch.poll-interval}")
+    public void poll() {
+        Instant horizon = Instant.now().minusMillis(accessTokenExpiry);
+        // Overlap the previous poll a little to tolerate clock skew between nodes
+        Instant since = lastPoll.minusSeconds(5).isAfter(horizon) ? lastPoll.minusSeconds(5) : horizon;
+        refresh(since);
+
+        long horizonMillis = horizon.toEpochMilli();
+        epochs.values().removeIf(epoch -> epoch < horizonMillis);
+    }
+
+    /**
+     * Full reload of all epochs that can still affect live tokens. Merged into the
+     * current map rather than replacing it, so revoked tokens stay rejected meanwhile;
+     * epochs past the horizon are dropped by the next poll.
+     */
+    public void resync() {
+        refresh(Instant.now().minusMillis(accessTokenExpiry));
+    }
+
+    private void refresh(Instant since) {
+        Instant startedAt = Instant.now();
+        // A lagging replica would hide revocations made on other nodes
+        List<TokenEpoch> changed = ReplicaRouting.onPrimary(() -> userRepository.findTokenEpochsChangedSince(since));
+        for (TokenEpoch epoch : changed) {
+            apply(epoch.getUserId(), epoch.getValidAfter());
+        }
+        lastPoll = startedAt;
+    }
+
+    /**
+     * Merges an epoch learned elsewhere, e.g. from another node over the invalidation bus.
+     */
+    public void apply(UUID userId, Instant validAfter) {
+        epochs.merge(userId, validAfter.toEpochMilli(), Math::max);
+    }
+}
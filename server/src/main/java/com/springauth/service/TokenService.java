@@ -1,126 +1,242 @@
 package com.springauth.service;
 
+import com.springauth.entity.AuthSession;
 import com.springauth.entity.RefreshToken;
 import com.springauth.entity.User;
+import com.springauth.exception.InvalidRefreshTokenException;
+import com.springauth.repository.AuthSessionRepository;
 import com.springauth.repository.RefreshTokenRepository;
+import com.springauth.repository.RefreshTokenRepository.TokenOwner;
+import com.springauth.repository.RefreshTokenRepository.TokenState;
+import com.springauth.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.HexFormat;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class TokenService {
 
     private final RefreshTokenRepository refreshTokenRepository;
-
+    private final AuthSessionRepository authSessionRepository;
+    private final UserRepository userRepository;
+    private final RefreshTokenHashCutover hashCutover;
+    private final TokenEpochService tokenEpochService;
+    private final MeterRegistry meterRegistry;
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+    // Thread-safe; seeded once, so minting never waits on entropy
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int TOKEN_LENGTH = 43;  // 32 random bytes, unpadded base64url
     @Value("${app.jwt.refresh-token-expiry}")
     private long refreshTokenExpiry;
 
     /**
-     * Creates a new refresh token for the user.
+     * Starts a new session (login, register) and returns its first refresh token.
      * Returns the RAW token (to send to client). Only the HASH is stored in DB.
+     * The user is only referenced by id, never loaded.
      */
     @Transactional
-    public String createRefreshToken(User user) {
+    public String createRefreshToken(UUID userId) {
+        User user = userRepository.getReferenceById(userId);
+        return issueRefreshToken(user, startSession(user));
+    }
+
+    private AuthSession startSession(User user) {
+        return authSessionRepository.save(AuthSession.builder().user(user).build());
+    }
+
+    private String issueRefreshToken(User user, AuthSession session) {
         String rawToken = generateRandomToken();
-        String tokenHash = hashToken(rawToken);
+        byte[] tokenHash = hashToken(rawToken);
 
         RefreshToken refreshToken = RefreshToken.builder()
                 .tokenHash(tokenHash)
                 .user(user)
+                .session(session)
                 .expiresAt(Instant.now().plusMillis(refreshTokenExpiry))
                 .build();
 
         refreshTokenRepository.save(refreshToken);
+        if (hashCutover.isLegacyLookupActive()) {
+            refreshTokenRepository.writeLegacyHash(refreshToken.getId(), HEX.formatHex(tokenHash));
+        }
 
         return rawToken;
     }
 
     /**
-     * Validates a refresh token and returns the DB record.
-     * Checks: exists, not revoked, not expired.
+     * Token rotation: revoke old token, issue the next one in the same session.
+     * The check-and-revoke is a single conditional UPDATE that also returns the
+     * owner, so the happy path is two statements. If someone uses an already rotated
+     * token, that token's session is revoked (breach detection); other devices stay logged in.
      */
-    public Optional<RefreshToken> validateRefreshToken(String rawToken) {
-        String tokenHash = hashToken(rawToken);
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public RotationResult rotateRefreshToken(String rawToken) {
+        byte[] tokenHash = hashToken(rawToken);
+
+        Optional<TokenOwner> revoked = refreshTokenRepository.revokeIfActive(tokenHash);
+        if (revoked.isEmpty() && adoptLegacyHash(rawToken, tokenHash)) {
+            revoked = refreshTokenRepository.revokeIfActive(tokenHash);
+        }
+        TokenOwner owner = revoked.orElseThrow(() -> rotationFailure(tokenHash));
+
+        // Issue new token in the same session (references only, no SELECT)
+        User user = userRepository.getReferenceById(owner.getUserId());
+        AuthSession session = owner.getSessionId() == null
+                ? startSession(user)  // token from before sessions: give it one now
+                : authSessionRepository.getReferenceById(owner.getSessionId());
+        String newToken = issueRefreshToken(user, session);
+        countRotation("success");
 
-        return refreshTokenRepository.findByTokenHash(tokenHash)
-                .filter(token -> !token.isRevoked())
-                .filter(token -> !token.isExpired());
+        return new RotationResult(newToken, owner.getUserId(), owner.getEmail(), owner.getFirstName());
     }
 
     /**
-     * Token rotation: revoke old token, issue new one for the same user.
-     * If someone uses a revoked token, all tokens for that user are revoked (breach detection).
+     * Slow path, only when the conditional revoke matched nothing: work out why.
      */
-    @Transactional
-    public String rotateRefreshToken(String rawToken) {
-        String tokenHash = hashToken(rawToken);
+    private InvalidRefreshTokenException rotationFailure(byte[] tokenHash) {
+        Optional<TokenState> existing = refreshTokenRepository.findStateByTokenHash(tokenHash);
+
+        if (existing.isEmpty()) {
+            countRotation("invalid");
+            return new InvalidRefreshTokenException("Invalid or expired refresh token");
+        }
 
-        RefreshToken existing = refreshTokenRepository.findByTokenHash(tokenHash)
-                .orElseThrow(() -> new RuntimeException("Refresh token not found"));
+        TokenState token = existing.get();
 
-        // Breach detection: if token is already revoked, someone stole it
-        if (existing.isRevoked()) {
-            refreshTokenRepository.revokeAllByUserId(existing.getUser().getId());
-            throw new RuntimeException("Refresh token reuse detected — all sessions revoked");
+        // Logged out or ended by "logout everywhere": its rows are revoked too, but that is no reuse
+        if (!token.isSessionActive()) {
+            countRotation("revoked");
+            return new InvalidRefreshTokenException("Session has been revoked");
         }
 
-        if (existing.isExpired()) {
-            throw new RuntimeException("Refresh token expired");
+        // Breach detection: if token is already rotated, someone else holds a copy
+        if (token.isRevoked()) {
+            if (token.getSessionId() != null) {
+                // Other nodes cache nothing per session; they read it on the next rotation
+                endSession(token.getSessionId());
+            } else {
+                // No family to target: fall back to ending every session of the user
+                revokeAll(token.getUserId());
+            }
+            countRotation("reuse_detected");
+            return new InvalidRefreshTokenException("Refresh token reuse detected — session revoked");
         }
 
-        // Revoke old token
-        existing.setRevoked(true);
-        refreshTokenRepository.save(existing);
+        if (token.isExpired()) {
+            countRotation("expired");
+            return new InvalidRefreshTokenException("Refresh token expired");
+        }
 
-        // Issue new token for same user
-        return createRefreshToken(existing.getUser());
+        // Not rotatable for a reason the checks above don't see (e.g. changed concurrently)
+        countRotation("revoked");
+        return new InvalidRefreshTokenException("Session has been revoked");
+    }
+
+    private void countRotation(String outcome) {
+        meterRegistry.counter("auth.refresh.rotations", "outcome", outcome).increment();
     }
 
     /**
-     * Revoke a single refresh token (logout).
+     * Logout: end the token's session, one row however often it was rotated.
      */
     @Transactional
     public void revokeRefreshToken(String rawToken) {
-        String tokenHash = hashToken(rawToken);
-
-        refreshTokenRepository.findByTokenHash(tokenHash).ifPresent(token -> {
-            token.setRevoked(true);
-            refreshTokenRepository.save(token);
+        byte[] tokenHash = hashToken(rawToken);
+
+        findStateByTokenHash(rawToken, tokenHash).ifPresent(token -> {
+            if (token.getSessionId() != null) {
+                endSession(token.getSessionId());
+            } else {
+                refreshTokenRepository.revoke(token.getId());
+            }
         });
     }
 
     /**
-     * Revoke ALL refresh tokens for a user (password change, "logout everywhere").
+     * Revoke ALL tokens for a user (password change, "logout everywhere").
+     * An update of the user's token epoch: access tokens issued and sessions
+     * started before it are rejected.
      */
     @Transactional
     public void revokeAllUserTokens(User user) {
-        refreshTokenRepository.revokeAllByUserId(user.getId());
+        revokeAll(user.getId());
+    }
+
+    private void revokeAll(UUID userId) {
+        tokenEpochService.revokeAll(userId);
+        // For one release, until no node rotates without checking sessions and epochs
+        refreshTokenRepository.revokeAllByUserId(userId);
     }
 
-    private String generateRandomToken() {
+    private void endSession(UUID sessionId) {
+        authSessionRepository.revoke(sessionId);
+        // For one release, until no node rotates without checking sessions
+        refreshTokenRepository.revokeAllBySessionId(sessionId);
+    }
+
+    /**
+     * Outcome of a rotation: the new raw token plus the owner's fields for the response.
+     */
+    public record RotationResult(String refreshToken, UUID userId, String email, String firstName) {}
+
+    // Package-private for the JMH benchmarks
+    static String generateRandomToken() {
         byte[] bytes = new byte[32];
-        new SecureRandom().nextBytes(bytes);
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        RANDOM.nextBytes(bytes);
+        return BASE64URL.encodeToString(bytes);
     }
 
-    private String hashToken(String rawToken) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(rawToken.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 not available", e);
+    private Optional<TokenState> findStateByTokenHash(String rawToken, byte[] tokenHash) {
+        Optional<TokenState> token = refreshTokenRepository.findStateByTokenHash(tokenHash);
+        if (token.isEmpty() && adoptLegacyHash(rawToken, tokenHash)) {
+            token = refreshTokenRepository.findStateByTokenHash(tokenHash);
         }
+        return token;
+    }
+
+    /**
+     * Cutover only: a miss may be a row not yet backfilled, so fill in its digest.
+     * Only tried for strings we could have minted; garbage costs no UPDATE.
+     */
+    private boolean adoptLegacyHash(String rawToken, byte[] tokenHash) {
+        // Not from read-only transactions; the background backfill gets to those rows
+        return hashCutover.isLegacyLookupActive()
+                && isWellFormed(rawToken)
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && refreshTokenRepository.adoptLegacyHash(tokenHash, HEX.formatHex(tokenHash)) > 0;
+    }
+
+    /**
+     * Shape of {@link #generateRandomToken()}: 32 bytes, unpadded base64url.
+     */
+    static boolean isWellFormed(String rawToken) {
+        if (rawToken.length() != TOKEN_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < rawToken.length(); i++) {
+            char c = rawToken.charAt(i);
+            if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static byte[] hashToken(String rawToken) {
+        return Sha256.digest(rawToken.getBytes(StandardCharsets.UTF_8));
     }
 }
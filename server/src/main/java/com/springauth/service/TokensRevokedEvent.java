@@ -0,0 +1,10 @@
+package com.springauth.service;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Published when all of a user's tokens are revoked; access tokens issued before
+ * {@code validAfter} must no longer be accepted.
+ */
+public record TokensRevokedEvent(UUID userId, Instant validAfter) {}
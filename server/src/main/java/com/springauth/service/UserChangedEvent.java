@@ -0,0 +1,8 @@
+package com.springauth.service;
+
+import java.util.UUID;
+
+/**
+ * Published whenever a user's account state changes, so cached copies can be dropped.
+ */
+public record UserChangedEvent(UUID userId) {}
@@ -0,0 +1,116 @@
+package com.springauth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.springauth.dto.UserPrincipal;
+import com.springauth.repository.ReplicaRouting;
+import com.springauth.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process cache of user principals for the bearer-token path.
+ * Entries are bounded by size and TTL, and dropped as soon as a
+ * {@link UserChangedEvent} commits. For a short while after that the user is
+ * reloaded from the primary, so a lagging replica can't put the old row back.
+ */
+@Component
+public class UserPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<UUID, UserPrincipal> cache;
+    private final Cache<UUID, Boolean> recentlyChanged;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserPrincipalCache(
+            UserRepository userRepository,
+            @Value("${app.user-cache.ttl}") long ttl,
+            @Value("${app.user-cache.max-size}") long maxSize,
+            @Value("${app.datasource.replica.max-lag}") long replicaMaxLag,
+            @Value("${app.datasource.replica.lag-check-interval}") long replicaLagCheckInterval
+    ) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .recordStats()
+                .build();
+        // Longest a replica that is still considered usable can be behind
+        this.recentlyChanged = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(replicaMaxLag + replicaLagCheckInterval))
+                .build();
+    }
+
+    /**
+     * Returns the principal for a user id, loading it on a miss. Unknown ids are not cached.
+     *
+     * The load runs outside the cache, not as a Caffeine loader: that would run inside
+     * ConcurrentHashMap.compute, a synchronized block, and a virtual thread waiting there
+     * for a pooled connection pins its carrier. With few carriers that stalls every
+     * request until the pool times out. A load that overlaps an invalidation is not kept.
+     */
+    public Optional<UserPrincipal> get(UUID userId) {
+        UserPrincipal cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long invalidationsBefore = invalidations.get();
+        UserPrincipal loaded = load(userId);
+        if (loaded != null) {
+            cache.put(userId, loaded);
+            // An invalidation that ran meanwhile may have come before the put; drop what we read
+            if (invalidations.get() != invalidationsBefore) {
+                cache.invalidate(userId);
+            }
+        }
+        return Optional.ofNullable(loaded);
+    }
+
+    public void invalidate(UUID userId) {
+        recentlyChanged.put(userId, Boolean.TRUE);
+        invalidations.incrementAndGet();
+        cache.invalidate(userId);
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    private UserPrincipal load(UUID userId) {
+        if (recentlyChanged.getIfPresent(userId) != null) {
+            return ReplicaRouting.onPrimary(() -> find(userId));
+        }
+        return find(userId);
+    }
+
+    private UserPrincipal find(UUID userId) {
+        // Three columns, no managed User entity; no roles for now, as in User.getAuthorities()
+        return userRepository.findPrincipalById(userId)
+                .map(user -> new UserPrincipal(user.getId(), user.getEmail(), user.isEnabled(), List.of()))
+                .orElse(null);
+    }
+}
@@ -0,0 +1,58 @@
+package com.springauth.service;
+
+import com.springauth.entity.User;
+import com.springauth.exception.UserNotFoundException;
+import com.springauth.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+/**
+ * Account changes. Every update goes through here so caches can be invalidated.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserService {
+
+    private final UserRepository userRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final TokenService tokenService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Disable: block the account and end all of its sessions.
+     */
+    @Transactional
+    public void disableUser(UUID userId) {
+        User user = findUser(userId);
+        user.setEnabled(false);
+        tokenService.revokeAllUserTokens(user);
+        eventPublisher.publishEvent(new UserChangedEvent(userId));
+    }
+
+    @Transactional
+    public void enableUser(UUID userId) {
+        User user = findUser(userId);
+        user.setEnabled(true);
+        eventPublisher.publishEvent(new UserChangedEvent(userId));
+    }
+
+    /**
+     * Password change: store the new hash and log out everywhere.
+     */
+    @Transactional
+    public void changePassword(UUID userId, String newPassword) {
+        User user = findUser(userId);
+        user.setPasswordHash(passwordHashingService.encode(newPassword));
+        tokenService.revokeAllUserTokens(user);
+        eventPublisher.publishEvent(new UserChangedEvent(userId));
+    }
+
+    private User findUser(UUID userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException(userId));
+    }
+}
@@ -0,0 +1,98 @@
+package com.springauth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of already-verified access tokens, keyed by the token's SHA-256.
+ * A repeat request with the same token costs one hash and one lookup instead of
+ * an HMAC check plus JSON parse. Entries expire exactly at the token's "exp".
+ * Only successfully verified tokens are cached.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final boolean enabled;
+    private final Cache<TokenDigest, Claims> cache;
+
+    public VerifiedTokenCache(
+            @Value("${app.jwt.verified-cache.enabled}") boolean enabled,
+            @Value("${app.jwt.verified-cache.max-size}") long maxSize
+    ) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ExpireAtTokenExpiry())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns cached claims for the token, or runs the verifier and caches a successful result.
+     */
+    public Optional<Claims> getOrVerify(String token, Function<String, Optional<Claims>> verifier) {
+        if (!enabled) {
+            return verifier.apply(token);
+        }
+
+        TokenDigest key = digest(token);
+        Claims cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<Claims> verified = verifier.apply(token);
+        verified.filter(claims -> claims.getExpiration() != null)
+                .ifPresent(claims -> cache.put(key, claims));
+        return verified;
+    }
+
+    /**
+     * Hit, miss and eviction counters.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static TokenDigest digest(String token) {
+        ByteBuffer hash = ByteBuffer.wrap(Sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        return new TokenDigest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+
+    /** 256-bit digest held as four longs, so keys need no array copy or hex string. */
+    private record TokenDigest(long a, long b, long c, long d) {}
+
+    private static class ExpireAtTokenExpiry implements Expiry<TokenDigest, Claims> {
+
+        @Override
+        public long expireAfterCreate(TokenDigest key, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
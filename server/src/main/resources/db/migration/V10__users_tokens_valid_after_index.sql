@@ -0,0 +1,8 @@
+-- TokenEpochService polls for recently changed epochs. Built CONCURRENTLY (outside
+-- a transaction, see the .conf file) so users stays writable during a deploy.
+
+-- A build that failed earlier leaves an INVALID index with this name behind
+DROP INDEX CONCURRENTLY IF EXISTS users_tokens_valid_after_idx;
+
+CREATE INDEX CONCURRENTLY users_tokens_valid_after_idx
+    ON users (tokens_valid_after) WHERE tokens_valid_after IS NOT NULL;
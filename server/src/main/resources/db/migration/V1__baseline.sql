@@ -0,0 +1,39 @@
+-- Schema as previously created by Hibernate ddl-auto. Every statement is idempotent,
+-- so databases that already have these tables are brought in line without data changes
+-- (Flyway baselines them at version 0 and then runs this script).
+
+CREATE TABLE IF NOT EXISTS users (
+    id            uuid         PRIMARY KEY,
+    email         varchar(255) NOT NULL UNIQUE,
+    password_hash varchar(255) NOT NULL,
+    first_name    varchar(255),
+    last_name     varchar(255),
+    enabled       boolean      NOT NULL,
+    created_at    timestamptz  NOT NULL,
+    updated_at    timestamptz
+);
+
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id           bigint       GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    token_digest bytea,
+    user_id      uuid         NOT NULL REFERENCES users (id),
+    expires_at   timestamptz  NOT NULL,
+    revoked      boolean      NOT NULL,
+    created_at   timestamptz  NOT NULL
+);
+
+-- Databases created before the hex -> bytea digest cutover
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS token_digest bytea;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'refresh_tokens' AND column_name = 'token_hash') THEN
+        ALTER TABLE refresh_tokens ALTER COLUMN token_hash DROP NOT NULL;
+    END IF;
+
+    -- Partitioned layouts carry a plain index instead (see db/partitioning)
+    IF (SELECT relkind FROM pg_class WHERE oid = 'refresh_tokens'::regclass) = 'r' THEN
+        CREATE UNIQUE INDEX IF NOT EXISTS refresh_tokens_token_digest_key ON refresh_tokens (token_digest);
+    END IF;
+END $$;
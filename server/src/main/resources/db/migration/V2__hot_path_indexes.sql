@@ -0,0 +1,13 @@
+-- Indexes for the hot paths. Built CONCURRENTLY so a rolling deploy doesn't block writes.
+
+-- Foreign key lookups (deleting a user, joins from users)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS refresh_tokens_user_id_idx
+    ON refresh_tokens (user_id);
+
+-- revokeAllByUserId only ever touches unrevoked rows
+CREATE INDEX CONCURRENTLY IF NOT EXISTS refresh_tokens_user_active_idx
+    ON refresh_tokens (user_id) WHERE revoked = false;
+
+-- RefreshTokenPurgeService batches
+CREATE INDEX CONCURRENTLY IF NOT EXISTS refresh_tokens_expires_at_idx
+    ON refresh_tokens (expires_at);
@@ -0,0 +1,3 @@
+-- "Tokens valid after" epoch: access tokens issued before it are rejected.
+-- Its index is built concurrently in V10, so users stays writable meanwhile.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS tokens_valid_after timestamptz;
@@ -0,0 +1,26 @@
+-- One account per email regardless of case. Registration relies on this index
+-- (a single INSERT, conflicts become 409), and login looks users up through it.
+--
+-- Runs outside a transaction (see the .conf file) for the concurrent build. If it
+-- fails, Flyway records the failure: fix the cause, run "flyway repair", re-run.
+
+-- Emails that differ only in case would make the build fail halfway. Say which.
+DO $$
+DECLARE
+    duplicate text;
+BEGIN
+    SELECT lower(email) INTO duplicate
+    FROM users
+    GROUP BY lower(email)
+    HAVING count(*) > 1
+    LIMIT 1;
+    IF FOUND THEN
+        RAISE EXCEPTION 'users has emails that differ only in case (e.g. %); merge or rename them before migrating', duplicate;
+    END IF;
+END $$;
+
+-- A build that failed earlier leaves an INVALID index with this name behind
+DROP INDEX CONCURRENTLY IF EXISTS users_email_lower_key;
+
+CREATE UNIQUE INDEX CONCURRENTLY users_email_lower_key
+    ON users (lower(email));
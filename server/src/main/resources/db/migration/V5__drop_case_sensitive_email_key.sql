@@ -0,0 +1,25 @@
+-- The case-sensitive unique constraint on users.email is covered by users_email_lower_key.
+-- Its name depends on who created it (V1 or Hibernate), so look it up.
+DO $$
+DECLARE
+    email_key text;
+BEGIN
+    -- Never drop the only working constraint: V4's index must have been built completely
+    IF NOT EXISTS (
+        SELECT 1 FROM pg_index
+        WHERE indexrelid = to_regclass('users_email_lower_key') AND indisvalid
+    ) THEN
+        RAISE EXCEPTION 'users_email_lower_key is missing or INVALID; re-run V4 before dropping the email constraint';
+    END IF;
+
+    FOR email_key IN
+        SELECT c.conname
+        FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attname = 'email'
+        WHERE c.conrelid = 'users'::regclass
+          AND c.contype = 'u'
+          AND c.conkey = ARRAY[a.attnum]
+    LOOP
+        EXECUTE format('ALTER TABLE users DROP CONSTRAINT %I', email_key);
+    END LOOP;
+END $$;
@@ -0,0 +1,21 @@
+-- Refresh token families. Every token belongs to the session started at login, so
+-- logout revokes one session row and "logout everywhere" is the user's token epoch
+-- (sessions created before users.tokens_valid_after are dead) instead of an UPDATE
+-- over all of the user's tokens.
+--
+-- Only quick catalog changes here; refresh_tokens is on every login and refresh.
+-- The index (V7), the backfill (V8) and the foreign key check (V9) follow, each
+-- without blocking writes.
+
+CREATE TABLE IF NOT EXISTS auth_sessions (
+    id         uuid        PRIMARY KEY,
+    user_id    uuid        NOT NULL REFERENCES users (id),
+    revoked    boolean     NOT NULL DEFAULT false,
+    created_at timestamptz NOT NULL
+);
+
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS session_id uuid;
+
+-- Enforced for new rows at once; existing rows are checked by V9
+ALTER TABLE refresh_tokens
+    ADD CONSTRAINT refresh_tokens_session_id_fkey FOREIGN KEY (session_id) REFERENCES auth_sessions (id) NOT VALID;
@@ -0,0 +1,8 @@
+-- Session purge looks for sessions without tokens; the V8 backfill finds tokens
+-- without a session. Built CONCURRENTLY, so refresh_tokens stays writable.
+
+-- A build that failed earlier leaves an INVALID index with this name behind
+DROP INDEX CONCURRENTLY IF EXISTS refresh_tokens_session_id_idx;
+
+CREATE INDEX CONCURRENTLY refresh_tokens_session_id_idx
+    ON refresh_tokens (session_id);
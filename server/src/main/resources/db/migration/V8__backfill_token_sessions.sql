@@ -0,0 +1,29 @@
+-- Each live token becomes a session of its own: one per device, as before.
+-- Runs outside a transaction (see the .conf file) and commits every batch, so no
+-- row stays locked for long. Tokens minted meanwhile by nodes without sessions get
+-- one at their next rotation.
+DO $$
+DECLARE
+    tagged integer;
+BEGIN
+    LOOP
+        WITH live AS (
+            SELECT id, user_id, created_at, gen_random_uuid() AS session_id
+            FROM refresh_tokens
+            WHERE session_id IS NULL AND revoked = false AND expires_at > now()
+            LIMIT 5000
+            FOR UPDATE
+        ), sessions AS (
+            INSERT INTO auth_sessions (id, user_id, revoked, created_at)
+            SELECT session_id, user_id, false, created_at FROM live
+        )
+        UPDATE refresh_tokens t
+        SET session_id = live.session_id
+        FROM live
+        WHERE t.id = live.id;
+
+        GET DIAGNOSTICS tagged = ROW_COUNT;
+        COMMIT;
+        EXIT WHEN tagged = 0;
+    END LOOP;
+END $$;
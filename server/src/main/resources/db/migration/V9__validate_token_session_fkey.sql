@@ -0,0 +1,3 @@
+-- Checks the rows that existed before V6. VALIDATE only takes a SHARE UPDATE
+-- EXCLUSIVE lock, so tokens keep being issued and rotated meanwhile.
+ALTER TABLE refresh_tokens VALIDATE CONSTRAINT refresh_tokens_session_id_fkey;
@@ -0,0 +1,63 @@
+-- Optional: convert refresh_tokens to a table range-partitioned by expires_at,
+-- one partition per UTC day, so expired tokens are dropped a partition at a time.
+--
+-- Run once during a maintenance window, after the hex -> bytea digest cutover has
+-- finished (token_hash dropped), then start the app with REFRESH_TOKEN_PARTITIONED=true.
+-- RefreshTokenPurgeService creates upcoming partitions and drops expired ones.
+--
+-- Postgres requires unique indexes on a partitioned table to include the partition
+-- key, so token_digest gets a plain index. Digests are random 256-bit values.
+
+BEGIN;
+
+ALTER TABLE refresh_tokens RENAME TO refresh_tokens_unpartitioned;
+ALTER INDEX refresh_tokens_user_id_idx RENAME TO refresh_tokens_unpartitioned_user_id_idx;
+ALTER INDEX refresh_tokens_user_active_idx RENAME TO refresh_tokens_unpartitioned_user_active_idx;
+ALTER INDEX refresh_tokens_session_id_idx RENAME TO refresh_tokens_unpartitioned_session_id_idx;
+ALTER INDEX refresh_tokens_expires_at_idx RENAME TO refresh_tokens_unpartitioned_expires_at_idx;
+
+CREATE TABLE refresh_tokens (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY,
+    token_digest bytea,
+    user_id      uuid        NOT NULL REFERENCES users (id),
+    session_id   uuid        REFERENCES auth_sessions (id),
+    expires_at   timestamptz NOT NULL,
+    revoked      boolean     NOT NULL DEFAULT false,
+    created_at   timestamptz NOT NULL,
+    PRIMARY KEY (id, expires_at)
+) PARTITION BY RANGE (expires_at);
+
+CREATE INDEX refresh_tokens_digest_idx ON refresh_tokens (token_digest);
+CREATE INDEX refresh_tokens_user_id_idx ON refresh_tokens (user_id);
+CREATE INDEX refresh_tokens_user_active_idx ON refresh_tokens (user_id) WHERE revoked = false;
+CREATE INDEX refresh_tokens_session_id_idx ON refresh_tokens (session_id);
+
+DO $$
+DECLARE
+    day date;
+BEGIN
+    FOR day IN SELECT generate_series(
+            (SELECT coalesce(min(expires_at), now()) AT TIME ZONE 'UTC'
+             FROM refresh_tokens_unpartitioned WHERE expires_at > now() - interval '1 day')::date,
+            (now() AT TIME ZONE 'UTC')::date + 9,
+            interval '1 day')::date
+    LOOP
+        EXECUTE format(
+            'CREATE TABLE %I PARTITION OF refresh_tokens FOR VALUES FROM (%L) TO (%L)',
+            'refresh_tokens_p' || to_char(day, 'YYYYMMDD'),
+            day::text || ' 00:00+00',
+            (day + 1)::text || ' 00:00+00');
+    END LOOP;
+END $$;
+
+INSERT INTO refresh_tokens (id, token_digest, user_id, session_id, expires_at, revoked, created_at)
+SELECT id, token_digest, user_id, session_id, expires_at, revoked, created_at
+FROM refresh_tokens_unpartitioned
+WHERE expires_at > now() - interval '1 day';
+
+SELECT setval(pg_get_serial_sequence('refresh_tokens', 'id'),
+              (SELECT coalesce(max(id), 0) + 1 FROM refresh_tokens_unpartitioned), false);
+
+DROP TABLE refresh_tokens_unpartitioned;
+
+COMMIT;
@@ -0,0 +1,51 @@
+package com.springauth;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The schema as Flyway leaves it on an empty database, including the steps that
+ * run outside a transaction.
+ */
+class MigrationTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Test
+    void everyMigrationIsApplied() {
+        assertThat(flyway.info().pending()).isEmpty();
+        assertThat(flyway.info().applied()).allMatch(migration -> migration.getState().isApplied()
+                && !migration.getState().isFailed());
+    }
+
+    @Test
+    void concurrentlyBuiltIndexesAreValid() {
+        Integer invalid = jdbcTemplate.queryForObject("SELECT count(*) FROM pg_index WHERE NOT indisvalid", Integer.class);
+
+        assertThat(invalid).isZero();
+    }
+
+    @Test
+    void hotPathIndexesExist() {
+        assertThat(indexExists("refresh_tokens_user_active_idx")).isTrue();
+        assertThat(indexExists("refresh_tokens_expires_at_idx")).isTrue();
+        assertThat(indexExists("users_tokens_valid_after_idx")).isTrue();
+    }
+
+    @Test
+    void sessionForeignKeyIsValidated() {
+        Boolean validated = jdbcTemplate.queryForObject(
+                "SELECT convalidated FROM pg_constraint WHERE conname = 'refresh_tokens_session_id_fkey'", Boolean.class);
+
+        assertThat(validated).isTrue();
+    }
+
+    private boolean indexExists(String name) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, name));
+    }
+}
@@ -0,0 +1,46 @@
+package com.springauth;
+
+import com.springauth.entity.User;
+import com.springauth.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.UUID;
+
+/**
+ * The full application against the shared embedded database, migrated by Flyway
+ * as in production. Every subclass uses the same settings, so they share one context.
+ */
+@SpringBootTest
+public abstract class PostgresIntegrationTest {
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", TestDatabase::jdbcUrl);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("management.server.port", () -> "-1");
+        // Cheapest cost, no calibration: tests hash a lot and assert nothing about BCrypt
+        registry.add("app.password-hashing.strength", () -> "4");
+    }
+
+    /**
+     * A fresh user, so tests never see each other's sessions or epochs.
+     */
+    protected User newUser() {
+        return userRepository.save(User.builder()
+                .email("test-" + UUID.randomUUID() + "@example.com")
+                .passwordHash("not-a-hash")
+                .firstName("Test")
+                .build());
+    }
+}
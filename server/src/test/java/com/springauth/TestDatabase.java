@@ -0,0 +1,47 @@
+package com.springauth;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * One embedded PostgreSQL for the whole test run, started on first use and
+ * stopped with the JVM. Same binaries as the load test, so no Docker or network.
+ */
+public final class TestDatabase {
+
+    private static EmbeddedPostgres postgres;
+
+    private TestDatabase() {
+    }
+
+    public static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Embedded PostgreSQL did not start", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(TestDatabase::stop));
+        }
+        return postgres;
+    }
+
+    public static String jdbcUrl() {
+        return postgres().getJdbcUrl("postgres", "postgres");
+    }
+
+    public static DataSource dataSource() {
+        return postgres().getPostgresDatabase();
+    }
+
+    private static synchronized void stop() {
+        try {
+            postgres.close();
+        } catch (IOException ignored) {
+            // JVM is exiting
+        }
+    }
+}
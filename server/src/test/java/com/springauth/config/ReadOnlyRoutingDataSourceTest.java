@@ -0,0 +1,73 @@
+package com.springauth.config;
+
+import com.springauth.repository.ReplicaRouting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReadOnlyRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final ReplicaLagMonitor lagMonitor = mock(ReplicaLagMonitor.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+
+    private final ReadOnlyRoutingDataSource routing = new ReadOnlyRoutingDataSource(primary, replica, lagMonitor);
+
+    @BeforeEach
+    void connections() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+    }
+
+    @Test
+    void readsFromTheReplicaWhileItIsUsable() throws SQLException {
+        when(lagMonitor.isReplicaUsable()).thenReturn(true);
+
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void readsFromThePrimaryWhileTheReplicaIsBehind() throws SQLException {
+        when(lagMonitor.isReplicaUsable()).thenReturn(false);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void onPrimaryBypassesAUsableReplica() throws SQLException {
+        when(lagMonitor.isReplicaUsable()).thenReturn(true);
+
+        Connection connection = ReplicaRouting.onPrimary(() -> {
+            try {
+                return routing.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(connection).isSameAs(primaryConnection);
+        assertThat(ReplicaRouting.isPrimaryForced()).isFalse();
+    }
+
+    @Test
+    void fallsBackToThePrimaryWhenTheReplicaFails() throws SQLException {
+        SQLException failure = new SQLException("connection refused");
+        when(lagMonitor.isReplicaUsable()).thenReturn(true);
+        when(replica.getConnection()).thenThrow(failure);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        verify(lagMonitor).replicaFailed(failure);
+    }
+}
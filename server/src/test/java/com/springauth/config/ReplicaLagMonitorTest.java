@@ -0,0 +1,54 @@
+package com.springauth.config;
+
+import com.springauth.TestDatabase;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaLagMonitorTest {
+
+    @Test
+    void parsesWalPositions() {
+        assertThat(ReplicaLagMonitor.lsn("0/0")).isZero();
+        assertThat(ReplicaLagMonitor.lsn("16/B374D848")).isEqualTo(0x16B374D848L);
+        assertThat(ReplicaLagMonitor.lsn("1/0")).isGreaterThan(ReplicaLagMonitor.lsn("0/FFFFFFFF"));
+    }
+
+    @Test
+    void aReplicaThatIsThePrimaryHasNoLag() {
+        DataSource database = TestDatabase.dataSource();
+
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(database, database, 1000);
+
+        assertThat(monitor.isReplicaUsable()).isTrue();
+        assertThat(monitor.lagMillis()).isZero();
+    }
+
+    @Test
+    void anUnreachableReplicaIsNotUsed() throws SQLException {
+        DataSource replica = mock(DataSource.class);
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(TestDatabase.dataSource(), replica, 1000);
+
+        assertThat(monitor.isReplicaUsable()).isFalse();
+        assertThat(monitor.lagMillis()).isEqualTo(-1);
+    }
+
+    @Test
+    void aFailedConnectionTakesTheReplicaOutOfUseUntilTheNextCheck() {
+        DataSource database = TestDatabase.dataSource();
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(database, database, 1000);
+
+        monitor.replicaFailed(new SQLException("connection reset"));
+        assertThat(monitor.isReplicaUsable()).isFalse();
+
+        monitor.check();
+        assertThat(monitor.isReplicaUsable()).isTrue();
+    }
+}
@@ -0,0 +1,41 @@
+package com.springauth.service;
+
+import com.springauth.exception.RateLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthRateLimiterTest {
+
+    private static final String IP = "203.0.113.7";
+
+    // One request a minute, so nothing refills while a test runs
+    private final AuthRateLimiter limiter = new AuthRateLimiter(true, 1, 2, 1, 1, 1_000);
+
+    @Test
+    void emailRejectionLeavesTheIpTokenUnspent() {
+        limiter.check(IP, "locked@example.com");
+        assertThatThrownBy(() -> limiter.check(IP, "locked@example.com"))
+                .isInstanceOf(RateLimitExceededException.class);
+
+        assertThatCode(() -> limiter.check(IP, "other@example.com")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void ipLimitAppliesAcrossEmails() {
+        limiter.check(IP, "a@example.com");
+        limiter.check(IP, "b@example.com");
+
+        assertThatThrownBy(() -> limiter.check(IP, "c@example.com"))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void emailIsLimitedIgnoringCase() {
+        limiter.check(IP, "someone@example.com");
+
+        assertThatThrownBy(() -> limiter.check("198.51.100.1", "SOMEONE@example.com"))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+}
@@ -0,0 +1,82 @@
+package com.springauth.service;
+
+import com.springauth.PostgresIntegrationTest;
+import com.springauth.dto.LoginRequest;
+import com.springauth.dto.RegisterRequest;
+import com.springauth.exception.EmailAlreadyExistsException;
+import com.springauth.exception.InvalidCredentialsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthServiceTest extends PostgresIntegrationTest {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void emailsAreUniqueIgnoringCase() {
+        String email = uniqueEmail();
+        authService.register(register(email));
+
+        assertThatThrownBy(() -> authService.register(register(email.toUpperCase(Locale.ROOT))))
+                .isInstanceOf(EmailAlreadyExistsException.class);
+    }
+
+    @Test
+    void loginFindsTheUserIgnoringCase() {
+        String email = uniqueEmail();
+        authService.register(register(email));
+
+        AuthService.AuthResult result = authService.login(new LoginRequest(email.toUpperCase(Locale.ROOT), PASSWORD));
+
+        assertThat(result.response().email()).isEqualTo(email);
+    }
+
+    @Test
+    void disabledUserIsRejectedAfterThePasswordMatch() {
+        String email = uniqueEmail();
+        authService.register(register(email));
+        userService.disableUser(userRepository.findCredentialsByEmail(email).orElseThrow().getId());
+        long matches = matchCount();
+
+        assertThatThrownBy(() -> authService.login(new LoginRequest(email, PASSWORD)))
+                .isInstanceOf(InvalidCredentialsException.class);
+        assertThat(matchCount()).isEqualTo(matches + 1);
+    }
+
+    @Test
+    void unknownEmailStillPaysForAMatch() {
+        long matches = matchCount();
+
+        assertThatThrownBy(() -> authService.login(new LoginRequest(uniqueEmail(), PASSWORD)))
+                .isInstanceOf(InvalidCredentialsException.class);
+        assertThat(matchCount()).isEqualTo(matches + 1);
+    }
+
+    private long matchCount() {
+        return meterRegistry.get("auth.password.hash").tag("operation", "match").timer().count();
+    }
+
+    private static RegisterRequest register(String email) {
+        return new RegisterRequest(email, PASSWORD, "Test", "User");
+    }
+
+    private static String uniqueEmail() {
+        return "auth-" + UUID.randomUUID() + "@example.com";
+    }
+}
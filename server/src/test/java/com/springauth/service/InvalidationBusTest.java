@@ -0,0 +1,99 @@
+package com.springauth.service;
+
+import com.springauth.PostgresIntegrationTest;
+import com.springauth.dto.UserPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Messages from "another node" are sent with pg_notify directly, the way
+ * InvalidationBus publishes them, but with a foreign node id.
+ */
+class InvalidationBusTest extends PostgresIntegrationTest {
+
+    private static final String OTHER_NODE = "other-node";
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    @Autowired
+    private TokenEpochService tokenEpochService;
+
+    @Value("${app.invalidation-bus.channel}")
+    private String channel;
+
+    @BeforeEach
+    void waitForListener() {
+        await().atMost(Duration.ofSeconds(10)).until(invalidationBus::isConnected);
+    }
+
+    @Test
+    void resyncsWhenItConnects() {
+        assertThat(invalidationBus.resyncCount()).isPositive();
+    }
+
+    @Test
+    void userChangedElsewhereDropsTheCachedPrincipal() {
+        UUID userId = newUser().getId();
+        assertThat(userPrincipalCache.get(userId)).map(UserPrincipal::enabled).contains(true);
+
+        // Disabled by another node: the row changes without an event on this one
+        jdbcTemplate.update("UPDATE users SET enabled = false WHERE id = ?", userId);
+        assertThat(userPrincipalCache.get(userId)).map(UserPrincipal::enabled).contains(true);
+        notifyFromOtherNode("user_changed", userId, "");
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(userPrincipalCache.get(userId)).map(UserPrincipal::enabled).contains(false));
+    }
+
+    @Test
+    void tokensRevokedElsewhereAppliesTheEpoch() {
+        UUID userId = newUser().getId();
+        Instant validAfter = Instant.now();
+
+        notifyFromOtherNode("tokens_revoked", userId, String.valueOf(validAfter.toEpochMilli()));
+
+        await().atMost(Duration.ofSeconds(5)).until(() ->
+                tokenEpochService.isRevoked(userId, validAfter.toEpochMilli() - 1));
+    }
+
+    @Test
+    void publishesRevocationsMadeHere() {
+        UUID userId = newUser().getId();
+        long published = invalidationBus.publishedCount();
+
+        tokenEpochService.revokeAll(userId);
+
+        assertThat(invalidationBus.publishedCount()).isGreaterThan(published);
+    }
+
+    @Test
+    void ignoresMalformedMessages() {
+        long received = invalidationBus.receivedCount();
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, channel, "not a message");
+
+        UUID userId = newUser().getId();
+        notifyFromOtherNode("user_changed", userId, "");
+
+        // Messages are applied in order, so once the valid one is counted the malformed one was skipped
+        await().atMost(Duration.ofSeconds(5)).until(() -> invalidationBus.receivedCount() > received);
+        assertThat(invalidationBus.isConnected()).isTrue();
+    }
+
+    private void notifyFromOtherNode(String type, UUID userId, String argument) {
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class,
+                channel, OTHER_NODE + "|" + type + "|" + userId + "|" + argument);
+    }
+}
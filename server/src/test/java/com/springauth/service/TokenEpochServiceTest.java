@@ -0,0 +1,68 @@
+package com.springauth.service;
+
+import com.springauth.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compared against the epoch stored on the user, never the wall clock, so the
+ * millisecond rounding in revokeAll can't make a test flaky.
+ */
+class TokenEpochServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private TokenEpochService tokenEpochService;
+
+    @Test
+    void revokeAllRejectsTokensIssuedBeforeTheStoredEpoch() {
+        UUID userId = newUser().getId();
+
+        tokenEpochService.revokeAll(userId);
+        long epoch = storedEpoch(userId).toEpochMilli();
+
+        assertThat(tokenEpochService.isRevoked(userId, epoch - 1)).isTrue();
+        assertThat(tokenEpochService.isRevoked(userId, epoch)).isFalse();
+    }
+
+    @Test
+    void revokeAllCoversEverythingIssuedUntilThen() {
+        UUID userId = newUser().getId();
+        long issuedBefore = System.currentTimeMillis();
+
+        tokenEpochService.revokeAll(userId);
+
+        assertThat(tokenEpochService.isRevoked(userId, issuedBefore)).isTrue();
+    }
+
+    @Test
+    void otherUsersAreNotAffected() {
+        UUID revoked = newUser().getId();
+        UUID other = newUser().getId();
+
+        tokenEpochService.revokeAll(revoked);
+
+        assertThat(tokenEpochService.isRevoked(other, storedEpoch(revoked).toEpochMilli() - 1)).isFalse();
+    }
+
+    @Test
+    void pollPicksUpEpochsWrittenByOtherNodes() {
+        UUID userId = newUser().getId();
+        Instant validAfter = Instant.now();
+        jdbcTemplate.update("UPDATE users SET tokens_valid_after = ? WHERE id = ?", Timestamp.from(validAfter), userId);
+
+        tokenEpochService.poll();
+
+        assertThat(tokenEpochService.isRevoked(userId, validAfter.toEpochMilli() - 1)).isTrue();
+    }
+
+    private Instant storedEpoch(UUID userId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT tokens_valid_after FROM users WHERE id = ?", Timestamp.class, userId).toInstant();
+    }
+}
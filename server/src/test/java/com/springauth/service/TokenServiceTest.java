@@ -0,0 +1,168 @@
+package com.springauth.service;
+
+import com.springauth.PostgresIntegrationTest;
+import com.springauth.entity.User;
+import com.springauth.exception.InvalidRefreshTokenException;
+import com.springauth.service.TokenService.RotationResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Test
+    void rotationReturnsTheOwnerAndANewToken() {
+        User user = newUser();
+        String token = tokenService.createRefreshToken(user.getId());
+
+        RotationResult rotated = tokenService.rotateRefreshToken(token);
+
+        assertThat(rotated.refreshToken()).isNotEqualTo(token);
+        assertThat(rotated.userId()).isEqualTo(user.getId());
+        assertThat(rotated.email()).isEqualTo(user.getEmail());
+        assertThat(rotated.firstName()).isEqualTo("Test");
+    }
+
+    @Test
+    void unknownTokensAreRejected() {
+        assertThatThrownBy(() -> tokenService.rotateRefreshToken(TokenService.generateRandomToken()))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Invalid or expired refresh token");
+    }
+
+    @Test
+    void concurrentRotationsOfOneTokenSucceedOnce() throws Exception {
+        String token = tokenService.createRefreshToken(newUser().getId());
+        int attempts = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        Callable<RotationResult> rotate = () -> {
+            start.await();
+            return tokenService.rotateRefreshToken(token);
+        };
+
+        int succeeded = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(attempts)) {
+            List<Future<RotationResult>> results = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                results.add(executor.submit(rotate));
+            }
+            start.countDown();
+            for (Future<RotationResult> result : results) {
+                try {
+                    result.get();
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(InvalidRefreshTokenException.class);
+                }
+            }
+        }
+
+        assertThat(succeeded).isEqualTo(1);
+    }
+
+    @Test
+    void storesTheBinaryDigestOfTheToken() {
+        User user = newUser();
+        String token = tokenService.createRefreshToken(user.getId());
+
+        byte[] digest = jdbcTemplate.queryForObject(
+                "SELECT token_digest FROM refresh_tokens WHERE user_id = ?", byte[].class, user.getId());
+
+        assertThat(digest).hasSize(32).isEqualTo(TokenService.hashToken(token));
+    }
+
+    @Test
+    void onlyMintedTokensAreWellFormed() {
+        assertThat(TokenService.isWellFormed(TokenService.generateRandomToken())).isTrue();
+        assertThat(TokenService.isWellFormed("too-short")).isFalse();
+        assertThat(TokenService.isWellFormed("+".repeat(43))).isFalse();
+    }
+
+    @Test
+    void reuseOfARotatedTokenEndsOnlyItsSession() {
+        User user = newUser();
+        String first = tokenService.createRefreshToken(user.getId());
+        String second = tokenService.rotateRefreshToken(first).refreshToken();
+        String otherDevice = tokenService.createRefreshToken(user.getId());
+
+        assertThatThrownBy(() -> tokenService.rotateRefreshToken(first))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessageContaining("reuse");
+        assertThatThrownBy(() -> tokenService.rotateRefreshToken(second))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Session has been revoked");
+        assertThat(tokenService.rotateRefreshToken(otherDevice).userId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void logoutEndsOnlyThatSession() {
+        User user = newUser();
+        String loggedOut = tokenService.createRefreshToken(user.getId());
+        String otherDevice = tokenService.createRefreshToken(user.getId());
+
+        tokenService.revokeRefreshToken(loggedOut);
+
+        assertThatThrownBy(() -> tokenService.rotateRefreshToken(loggedOut))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Session has been revoked");
+        assertThat(tokenService.rotateRefreshToken(otherDevice).userId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void revokeAllEndsEverySessionStartedBefore() {
+        User user = newUser();
+        String first = tokenService.createRefreshToken(user.getId());
+        String second = tokenService.rotateRefreshToken(tokenService.createRefreshToken(user.getId())).refreshToken();
+
+        tokenService.revokeAllUserTokens(user);
+
+        assertThatThrownBy(() -> tokenService.rotateRefreshToken(first))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Session has been revoked");
+        assertThatThrownBy(() -> tokenService.rotateRefreshToken(second))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Session has been revoked");
+    }
+
+    @Test
+    void sessionsStartedAfterTheEpochStayActive() {
+        User user = newUser();
+        // An earlier "logout everywhere", stored as revokeAll would
+        jdbcTemplate.update("UPDATE users SET tokens_valid_after = now() - interval '1 minute' WHERE id = ?", user.getId());
+
+        String token = tokenService.createRefreshToken(user.getId());
+
+        assertThat(tokenService.rotateRefreshToken(token).userId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void rotationsStayInTheLoginSession() {
+        User user = newUser();
+        String token = tokenService.createRefreshToken(user.getId());
+        for (int i = 0; i < 5; i++) {
+            token = tokenService.rotateRefreshToken(token).refreshToken();
+        }
+
+        Integer sessions = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM auth_sessions WHERE user_id = ?", Integer.class, user.getId());
+        Integer families = jdbcTemplate.queryForObject(
+                "SELECT count(DISTINCT session_id) FROM refresh_tokens WHERE user_id = ?", Integer.class, user.getId());
+
+        assertThat(sessions).isEqualTo(1);
+        assertThat(families).isEqualTo(1);
+    }
+}
@@ -0,0 +1,76 @@
+package com.springauth.service;
+
+import com.springauth.PostgresIntegrationTest;
+import com.springauth.dto.UserPrincipal;
+import com.springauth.entity.User;
+import com.springauth.exception.InvalidRefreshTokenException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Account changes must reach the principal cache as soon as they commit,
+ * not when the cached entry expires.
+ */
+class UserServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Test
+    void disablingAUserDropsTheCachedPrincipal() {
+        UUID userId = newUser().getId();
+        assertThat(userPrincipalCache.get(userId)).map(UserPrincipal::enabled).contains(true);
+
+        userService.disableUser(userId);
+
+        assertThat(userPrincipalCache.get(userId)).map(UserPrincipal::enabled).contains(false);
+    }
+
+    @Test
+    void enablingAUserDropsTheCachedPrincipal() {
+        UUID userId = newUser().getId();
+        userService.disableUser(userId);
+        assertThat(userPrincipalCache.get(userId)).map(UserPrincipal::enabled).contains(false);
+
+        userService.enableUser(userId);
+
+        assertThat(userPrincipalCache.get(userId)).map(UserPrincipal::enabled).contains(true);
+    }
+
+    @Test
+    void disablingAUserEndsItsSessions() {
+        UUID userId = newUser().getId();
+        String token = tokenService.createRefreshToken(userId);
+
+        userService.disableUser(userId);
+
+        assertThatThrownBy(() -> tokenService.rotateRefreshToken(token))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+    }
+
+    @Test
+    void changingThePasswordEndsEverySessionAndDropsTheCachedPrincipal() {
+        User user = newUser();
+        String token = tokenService.createRefreshToken(user.getId());
+        userPrincipalCache.get(user.getId());
+        long misses = userPrincipalCache.stats().missCount();
+
+        userService.changePassword(user.getId(), "a new password");
+
+        assertThatThrownBy(() -> tokenService.rotateRefreshToken(token))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        userPrincipalCache.get(user.getId());
+        assertThat(userPrincipalCache.stats().missCount()).isEqualTo(misses + 1);
+    }
+}